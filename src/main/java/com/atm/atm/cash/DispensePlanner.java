@@ -0,0 +1,202 @@
+package com.atm.atm.cash;
+
+import java.util.Arrays;
+
+/**
+ * Chooses which notes to dispense for an amount, given a terminal's denominations and note counts.
+ * The fewest-notes combination of every amount up to a limit is computed once, so planning a
+ * common amount is a table lookup plus one comparison per cassette. When that combination does
+ * not fit the notes left, or the amount is above the limit, a depth-first search over the available
+ * counts takes over. The search visits at most a fixed number of nodes and reports no plan once
+ * they are used up, so its cost does not grow with the notes left. Planning never allocates.
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+public final class DispensePlanner {
+
+    /**
+     * Search nodes visited before giving up on an amount, by default; roughly a millisecond.
+     */
+    public static final int DEFAULT_MAX_SEARCH_NODES = 100_000;
+
+    // Marks an amount that no combination of the denominations can make
+    private static final int IMPOSSIBLE = -1;
+    // Returned by the search once it has found a plan
+    private static final int FOUND = -1;
+
+    private final long[] denominations;
+    private final long unit;
+    private final int tableSize;
+    private final int[] table;
+    private final int maxSearchNodes;
+
+    /**
+     * @param denominations note values in minor units, in descending order, all positive
+     * @param precomputedMax largest amount, in minor units, to precompute a plan for
+     */
+    public DispensePlanner(long[] denominations, long precomputedMax) {
+        this(denominations, precomputedMax, DEFAULT_MAX_SEARCH_NODES);
+    }
+
+    /**
+     * @param denominations note values in minor units, in descending order, all positive
+     * @param precomputedMax largest amount, in minor units, to precompute a plan for
+     * @param maxSearchNodes search nodes to visit before reporting that there is no plan
+     */
+    public DispensePlanner(long[] denominations, long precomputedMax, int maxSearchNodes) {
+        if (denominations.length == 0) {
+            throw new IllegalArgumentException("At least one denomination is required");
+        }
+        for (int i = 0; i < denominations.length; i++) {
+            if (denominations[i] <= 0 || (i > 0 && denominations[i] >= denominations[i - 1])) {
+                throw new IllegalArgumentException("Denominations must be positive and strictly descending");
+            }
+        }
+        if (maxSearchNodes <= 0) {
+            throw new IllegalArgumentException("The search node limit must be positive");
+        }
+        this.denominations = denominations.clone();
+        this.maxSearchNodes = maxSearchNodes;
+
+        long gcd = 0;
+        for (long denomination : denominations) {
+            gcd = gcd(gcd, denomination);
+        }
+        this.unit = gcd;
+        this.tableSize = (int) Math.min(Integer.MAX_VALUE / denominations.length, precomputedMax / unit + 1);
+        this.table = buildTable();
+    }
+
+    /**
+     * @return the number of cassettes, and the length of count arrays passed to {@link #plan}
+     */
+    public int size() {
+        return denominations.length;
+    }
+
+    /**
+     * @param index cassette index
+     * @return the note value of that cassette, in minor units
+     */
+    public long denomination(int index) {
+        return denominations[index];
+    }
+
+    /**
+     * Find a combination of notes for an amount.
+     *
+     * @param amount the amount, in minor units
+     * @param available notes left per denomination, in denomination order
+     * @param out receives the notes to dispense per denomination; left unspecified if there is no plan
+     * @return true if the amount can be dispensed from the available notes; false if it cannot,
+     *         or if the search ran out of nodes before finding a plan
+     */
+    public boolean plan(long amount, int[] available, int[] out) {
+        if (amount <= 0 || amount % unit != 0) {
+            return false;
+        }
+        long units = amount / unit;
+        if (units < tableSize) {
+            int base = (int) units * denominations.length;
+            if (table[base] == IMPOSSIBLE) {
+                // Not even unlimited notes could make it
+                return false;
+            }
+            if (fits(base, available)) {
+                System.arraycopy(table, base, out, 0, denominations.length);
+                return true;
+            }
+        }
+        return search(amount, 0, available, out, maxSearchNodes) == FOUND;
+    }
+
+    private boolean fits(int base, int[] available) {
+        for (int i = 0; i < denominations.length; i++) {
+            if (table[base + i] > available[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Depth-first search, largest notes first, within the available counts.
+     *
+     * @return {@link #FOUND}, or the nodes left after the subtree failed; 0 once they are used up
+     */
+    private int search(long remaining, int index, int[] available, int[] out, int nodes) {
+        if (nodes == 0) {
+            return 0;
+        }
+        nodes--;
+        if (remaining == 0) {
+            Arrays.fill(out, index, denominations.length, 0);
+            return FOUND;
+        }
+        if (index == denominations.length) {
+            return nodes;
+        }
+        long denomination = denominations[index];
+        if (index == denominations.length - 1) {
+            // The smallest note has to cover the rest exactly
+            if (remaining % denomination != 0 || remaining / denomination > available[index]) {
+                return nodes;
+            }
+            out[index] = (int) (remaining / denomination);
+            return FOUND;
+        }
+        for (long notes = Math.min(available[index], remaining / denomination); notes >= 0 && nodes > 0; notes--) {
+            out[index] = (int) notes;
+            nodes = search(remaining - notes * denomination, index + 1, available, out, nodes);
+            if (nodes == FOUND) {
+                return FOUND;
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Fewest-notes combination of every multiple of the unit below the table size,
+     * flattened as one row of per-denomination counts per amount.
+     */
+    private int[] buildTable() {
+        int k = denominations.length;
+        int[] notes = new int[tableSize];
+        int[] last = new int[tableSize];
+        Arrays.fill(notes, Integer.MAX_VALUE);
+        notes[0] = 0;
+        for (int units = 1; units < tableSize; units++) {
+            for (int i = 0; i < k; i++) {
+                long step = denominations[i] / unit;
+                if (step <= units && notes[(int) (units - step)] != Integer.MAX_VALUE
+                        && notes[(int) (units - step)] + 1 < notes[units]) {
+                    notes[units] = notes[(int) (units - step)] + 1;
+                    last[units] = i;
+                }
+            }
+        }
+
+        int[] plans = new int[tableSize * k];
+        for (int units = 1; units < tableSize; units++) {
+            int base = units * k;
+            if (notes[units] == Integer.MAX_VALUE) {
+                plans[base] = IMPOSSIBLE;
+                continue;
+            }
+            // A plan is the plan of the amount one note smaller, plus that note
+            int previous = (int) (units - denominations[last[units]] / unit);
+            System.arraycopy(plans, previous * k, plans, base, k);
+            plans[base + last[units]]++;
+        }
+        return plans;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -2,11 +2,14 @@ package com.atm.atm.controller;
 
 import com.atm.atm.dto.*;
 import com.atm.atm.entity.Account;
-import com.atm.atm.exception.InsufficientBalanceException;
-import com.atm.atm.exception.InvalidAmountException;
+import com.atm.atm.entity.AccountStatus;
+import com.atm.atm.exception.AccountNotFoundException;
+import com.atm.atm.money.Money;
 import com.atm.atm.service.AccountService;
+import com.atm.atm.service.AccountStatisticsService;
 import com.atm.atm.service.ATMService;
-import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
@@ -14,7 +17,7 @@ import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.util.UUID;
 
 /**
  * Controller for ATM operations.
@@ -25,53 +28,92 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ATMController {
 
+    private static final int HISTORY_PAGE_SIZE = 20;
+
     private final AccountService accountService;
     private final ATMService atmService;
+    private final AccountStatisticsService accountStatisticsService;
+    private final WebAuthentication webAuthentication;
 
     /**
-     * Helper method to get AccountDTO from session.
+     * Helper method to get the signed-in account, read through the account service.
+     * An account locked since it signed in is signed out, however long its cookie is still valid.
      */
-    private AccountDTO getSessionAccountDTO(HttpSession session) {
-        return (AccountDTO) session.getAttribute("account");
+    private AccountDTO getSignedInAccount(HttpServletRequest request, HttpServletResponse response) {
+        String accountNumber = webAuthentication.accountNumber(request, response);
+        if (accountNumber == null) return null;
+        AccountDTO account;
+        try {
+            account = accountService.getAccountByNumber(accountNumber);
+        } catch (AccountNotFoundException e) {
+            return null;
+        }
+        if (account.getStatus() == AccountStatus.LOCKED) {
+            webAuthentication.signOut(request, response);
+            return null;
+        }
+        return account;
     }
 
     /**
-     * Helper method to get Account entity from session.
+     * Empty withdraw form carrying a fresh idempotency key, so resubmitting it cannot withdraw twice.
      */
-    private Account getSessionAccount(HttpSession session) {
-        AccountDTO dto = getSessionAccountDTO(session);
-        if (dto == null) return null;
-        return accountService.getAccountEntityByNumber(dto.getAccountNumber());
+    private WithdrawRequest newWithdrawRequest() {
+        WithdrawRequest request = new WithdrawRequest();
+        request.setIdempotencyKey(UUID.randomUUID().toString());
+        return request;
     }
 
     /**
-     * Display ATM dashboard with current balance.
+     * Empty deposit form carrying a fresh idempotency key, so resubmitting it cannot deposit twice.
+     */
+    private DepositRequest newDepositRequest() {
+        DepositRequest request = new DepositRequest();
+        request.setIdempotencyKey(UUID.randomUUID().toString());
+        return request;
+    }
+
+    /**
+     * Empty transfer form carrying a fresh idempotency key, so resubmitting it cannot transfer twice.
+     */
+    private TransferRequest newTransferRequest() {
+        TransferRequest request = new TransferRequest();
+        request.setIdempotencyKey(UUID.randomUUID().toString());
+        return request;
+    }
+
+    /**
+     * Display ATM dashboard with current balance, activity totals and a mini-statement.
      *
-     * @param session the HTTP session
+     * @param request the HTTP request
+     * @param response the HTTP response
      * @param model the model object
      * @return dashboard view
      */
     @GetMapping("/dashboard")
-    public String dashboard(HttpSession session, Model model) {
-        AccountDTO account = getSessionAccountDTO(session);
+    public String dashboard(HttpServletRequest request, HttpServletResponse response, Model model) {
+        AccountDTO account = getSignedInAccount(request, response);
         if (account == null) return "redirect:/auth/login";
         model.addAttribute("account", account);
+        model.addAttribute("statistics", accountStatisticsService.statistics(account.getId()));
+        model.addAttribute("recentTransactions", atmService.getRecentTransactions(account.getId(), account.getAccountNumber()));
         return "dashboard";
     }
 
     /**
      * Display withdraw page.
      *
-     * @param session the HTTP session
+     * @param request the HTTP request
+     * @param response the HTTP response
      * @param model the model object
      * @return withdraw view
      */
     @GetMapping("/withdraw")
-    public String showWithdrawForm(HttpSession session, Model model) {
-        AccountDTO account = getSessionAccountDTO(session);
+    public String showWithdrawForm(HttpServletRequest request, HttpServletResponse response, Model model) {
+        AccountDTO account = getSignedInAccount(request, response);
         if (account == null) return "redirect:/auth/login";
         model.addAttribute("account", account);
-        model.addAttribute("withdrawRequest", new WithdrawRequest());
+        model.addAttribute("withdrawRequest", newWithdrawRequest());
         return "withdraw";
     }
 
@@ -80,26 +122,27 @@ public class ATMController {
      *
      * @param withdrawRequest the withdrawal details
      * @param bindingResult validation results
-     * @param session the HTTP session
+     * @param request the HTTP request
+     * @param response the HTTP response
      * @param model the model object
      * @return dashboard on success, withdraw page on failure
      */
     @PostMapping("/withdraw")
     public String withdraw(@Valid @ModelAttribute("withdrawRequest") WithdrawRequest withdrawRequest,
                           BindingResult bindingResult,
-                          HttpSession session,
+                          HttpServletRequest request,
+                          HttpServletResponse response,
                           Model model) {
-        AccountDTO accountDTO = getSessionAccountDTO(session);
+        AccountDTO accountDTO = getSignedInAccount(request, response);
         if (accountDTO == null) return "redirect:/auth/login";
         model.addAttribute("account", accountDTO);
         if (bindingResult.hasErrors()) return "withdraw";
         try {
             Account account = accountService.getAccountEntityByNumber(accountDTO.getAccountNumber());
-            atmService.withdraw(account, withdrawRequest.getAmount());
-            // Update session account
-            session.setAttribute("account", accountService.getAccountByNumber(account.getAccountNumber()));
+            atmService.withdraw(account, Money.of(withdrawRequest.getAmount()), withdrawRequest.getIdempotencyKey());
+            model.addAttribute("account", accountService.getAccountByNumber(account.getAccountNumber()));
             model.addAttribute("successMessage", "Withdrawal successful!");
-            model.addAttribute("withdrawRequest", new WithdrawRequest());
+            model.addAttribute("withdrawRequest", newWithdrawRequest());
         } catch (Exception e) {
             model.addAttribute("error", e.getMessage());
         }
@@ -109,16 +152,17 @@ public class ATMController {
     /**
      * Display deposit page.
      *
-     * @param session the HTTP session
+     * @param request the HTTP request
+     * @param response the HTTP response
      * @param model the model object
      * @return deposit view
      */
     @GetMapping("/deposit")
-    public String showDepositForm(HttpSession session, Model model) {
-        AccountDTO account = getSessionAccountDTO(session);
+    public String showDepositForm(HttpServletRequest request, HttpServletResponse response, Model model) {
+        AccountDTO account = getSignedInAccount(request, response);
         if (account == null) return "redirect:/auth/login";
         model.addAttribute("account", account);
-        model.addAttribute("depositRequest", new DepositRequest());
+        model.addAttribute("depositRequest", newDepositRequest());
         return "deposit";
     }
 
@@ -127,26 +171,27 @@ public class ATMController {
      *
      * @param depositRequest the deposit details
      * @param bindingResult validation results
-     * @param session the HTTP session
+     * @param request the HTTP request
+     * @param response the HTTP response
      * @param model the model object
      * @return dashboard on success, deposit page on failure
      */
     @PostMapping("/deposit")
     public String deposit(@Valid @ModelAttribute("depositRequest") DepositRequest depositRequest,
                         BindingResult bindingResult,
-                        HttpSession session,
+                        HttpServletRequest request,
+                        HttpServletResponse response,
                         Model model) {
-        AccountDTO accountDTO = getSessionAccountDTO(session);
+        AccountDTO accountDTO = getSignedInAccount(request, response);
         if (accountDTO == null) return "redirect:/auth/login";
         model.addAttribute("account", accountDTO);
         if (bindingResult.hasErrors()) return "deposit";
         try {
             Account account = accountService.getAccountEntityByNumber(accountDTO.getAccountNumber());
-            atmService.deposit(account, depositRequest.getAmount());
-            // Update session account
-            session.setAttribute("account", accountService.getAccountByNumber(account.getAccountNumber()));
+            atmService.deposit(account, Money.of(depositRequest.getAmount()), depositRequest.getIdempotencyKey());
+            model.addAttribute("account", accountService.getAccountByNumber(account.getAccountNumber()));
             model.addAttribute("successMessage", "Deposit successful!");
-            model.addAttribute("depositRequest", new DepositRequest());
+            model.addAttribute("depositRequest", newDepositRequest());
         } catch (Exception e) {
             model.addAttribute("error", e.getMessage());
         }
@@ -154,29 +199,85 @@ public class ATMController {
     }
 
     /**
-     * Display transaction history page.
+     * Display transfer page.
+     *
+     * @param request the HTTP request
+     * @param response the HTTP response
+     * @param model the model object
+     * @return transfer view
+     */
+    @GetMapping("/transfer")
+    public String showTransferForm(HttpServletRequest request, HttpServletResponse response, Model model) {
+        AccountDTO account = getSignedInAccount(request, response);
+        if (account == null) return "redirect:/auth/login";
+        model.addAttribute("account", account);
+        model.addAttribute("transferRequest", newTransferRequest());
+        return "transfer";
+    }
+
+    /**
+     * Handle transfer to another account.
+     *
+     * @param transferRequest the transfer details
+     * @param bindingResult validation results
+     * @param request the HTTP request
+     * @param response the HTTP response
+     * @param model the model object
+     * @return transfer page with the result
+     */
+    @PostMapping("/transfer")
+    public String transfer(@Valid @ModelAttribute("transferRequest") TransferRequest transferRequest,
+                           BindingResult bindingResult,
+                           HttpServletRequest request,
+                           HttpServletResponse response,
+                           Model model) {
+        AccountDTO accountDTO = getSignedInAccount(request, response);
+        if (accountDTO == null) return "redirect:/auth/login";
+        model.addAttribute("account", accountDTO);
+        if (bindingResult.hasErrors()) return "transfer";
+        try {
+            Account from = accountService.getAccountEntityByNumber(accountDTO.getAccountNumber());
+            Account to = accountService.getAccountEntityByNumber(transferRequest.getToAccountNumber());
+            atmService.transfer(from, to, Money.of(transferRequest.getAmount()), transferRequest.getIdempotencyKey());
+            model.addAttribute("account", accountService.getAccountByNumber(from.getAccountNumber()));
+            model.addAttribute("successMessage", "Transfer successful!");
+            model.addAttribute("transferRequest", newTransferRequest());
+        } catch (Exception e) {
+            model.addAttribute("error", e.getMessage());
+        }
+        return "transfer";
+    }
+
+    /**
+     * Display one page of transaction history.
      *
-     * @param session the HTTP session
+     * @param cursor cursor of the page to show, absent for the newest transactions
+     * @param request the HTTP request
+     * @param response the HTTP response
      * @param model the model object
      * @return transaction history view
      */
     @GetMapping("/history")
-    public String showTransactionHistory(HttpSession session, Model model) {
-        AccountDTO accountDTO = getSessionAccountDTO(session);
+    public String showTransactionHistory(@RequestParam(required = false) String cursor,
+                                         HttpServletRequest request,
+                                         HttpServletResponse response,
+                                         Model model) {
+        AccountDTO accountDTO = getSignedInAccount(request, response);
         if (accountDTO == null) return "redirect:/auth/login";
-        Account account = accountService.getAccountEntityByNumber(accountDTO.getAccountNumber());
-        List<TransactionDTO> transactions = atmService.getTransactionHistory(account);
+        TransactionPage page = atmService.getTransactionPage(accountDTO.getId(), cursor, HISTORY_PAGE_SIZE);
         model.addAttribute("account", accountDTO);
-        model.addAttribute("transactions", transactions);
+        model.addAttribute("transactions", page.getTransactions());
+        model.addAttribute("nextCursor", page.getNextCursor());
+        model.addAttribute("firstPage", cursor == null || cursor.isBlank());
         return "transaction-history";
     }
 
     /**
-     * Logout and invalidate session.
+     * Logout and sign the account out.
      */
     @GetMapping("/logout")
-    public String logout(HttpSession session) {
-        session.invalidate();
+    public String logout(HttpServletRequest request, HttpServletResponse response) {
+        webAuthentication.signOut(request, response);
         return "redirect:/auth/login?logout=true";
     }
 }
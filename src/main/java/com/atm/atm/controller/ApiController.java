@@ -0,0 +1,216 @@
+package com.atm.atm.controller;
+
+import com.atm.atm.dto.*;
+import com.atm.atm.entity.Account;
+import com.atm.atm.money.Money;
+import com.atm.atm.service.AccountService;
+import com.atm.atm.service.ATMService;
+import com.atm.atm.service.ApiTokenService;
+import com.atm.atm.service.BalanceSnapshotService;
+import com.atm.atm.service.StatementService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * JSON API for terminals and other machine clients.
+ * Exposes the same operations as the HTML controllers without view rendering or
+ * server-side sessions; requests authenticate with a bearer token from {@code POST /api/v1/auth/token}.
+ */
+@RestController
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+public class ApiController {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String TERMINAL_ID_HEADER = "X-Terminal-Id";
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final AccountService accountService;
+    private final ATMService atmService;
+    private final ApiTokenService apiTokenService;
+    private final StatementService statementService;
+    private final BalanceSnapshotService balanceSnapshotService;
+
+    /**
+     * Authenticate and issue an access token.
+     *
+     * @param loginRequest the login credentials
+     * @param request the HTTP request, for the client address
+     * @return the token and the authenticated account
+     */
+    @PostMapping("/auth/token")
+    public TokenResponse login(@Valid @RequestBody LoginRequest loginRequest, HttpServletRequest request) {
+        AccountDTO account = accountService.authenticate(loginRequest.getAccountNumber(), loginRequest.getPin(),
+                request.getRemoteAddr());
+        String token = apiTokenService.issue(account.getAccountNumber());
+        return new TokenResponse(token, "Bearer", apiTokenService.ttlSeconds(), account);
+    }
+
+    /**
+     * Revoke the access token of the request.
+     *
+     * @param authorization the Authorization header
+     * @return 204 No Content
+     */
+    @DeleteMapping("/auth/token")
+    public ResponseEntity<Void> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        apiTokenService.revoke(bearerToken(authorization));
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Get the authenticated account with its current balance.
+     *
+     * @param authorization the Authorization header
+     * @return the account
+     */
+    @GetMapping("/account")
+    public AccountDTO account(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        return accountService.getAccountByNumber(authenticatedAccountNumber(authorization));
+    }
+
+    /**
+     * Get the balance of the authenticated account at a point in time.
+     *
+     * @param authorization the Authorization header
+     * @param at the point in time, as an ISO date-time
+     * @return the balance after the last transaction at or before that time
+     */
+    @GetMapping("/balance")
+    public HistoricalBalance balance(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        AccountDTO account = accountService.getAccountByNumber(authenticatedAccountNumber(authorization));
+        return new HistoricalBalance(account.getAccountNumber(), at, balanceSnapshotService.balanceAt(account, at));
+    }
+
+    /**
+     * Withdraw cash from the authenticated account.
+     * Retries carrying the same Idempotency-Key header get the first result back.
+     *
+     * @param authorization the Authorization header
+     * @param idempotencyKey the Idempotency-Key header, overrides the key in the body
+     * @param terminalId the X-Terminal-Id header naming the terminal paying out, absent for the default terminal
+     * @param withdrawRequest the withdrawal details
+     * @return the completed transaction
+     */
+    @PostMapping("/withdraw")
+    public TransactionDTO withdraw(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                   @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                   @RequestHeader(value = TERMINAL_ID_HEADER, required = false) String terminalId,
+                                   @Valid @RequestBody WithdrawRequest withdrawRequest) {
+        Account account = accountService.getAccountEntityByNumber(authenticatedAccountNumber(authorization));
+        return atmService.withdraw(account, Money.of(withdrawRequest.getAmount()),
+                idempotencyKey != null ? idempotencyKey : withdrawRequest.getIdempotencyKey(), terminalId);
+    }
+
+    /**
+     * Deposit cash to the authenticated account.
+     * Retries carrying the same Idempotency-Key header get the first result back.
+     *
+     * @param authorization the Authorization header
+     * @param idempotencyKey the Idempotency-Key header, overrides the key in the body
+     * @param depositRequest the deposit details
+     * @return the completed transaction
+     */
+    @PostMapping("/deposit")
+    public TransactionDTO deposit(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                  @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                  @Valid @RequestBody DepositRequest depositRequest) {
+        Account account = accountService.getAccountEntityByNumber(authenticatedAccountNumber(authorization));
+        return atmService.deposit(account, Money.of(depositRequest.getAmount()),
+                idempotencyKey != null ? idempotencyKey : depositRequest.getIdempotencyKey());
+    }
+
+    /**
+     * Transfer money from the authenticated account to another account.
+     * Retries carrying the same Idempotency-Key header get the first result back.
+     *
+     * @param authorization the Authorization header
+     * @param idempotencyKey the Idempotency-Key header, overrides the key in the body
+     * @param transferRequest the transfer details
+     * @return the outgoing leg of the transfer
+     */
+    @PostMapping("/transfer")
+    public TransactionDTO transfer(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                   @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                   @Valid @RequestBody TransferRequest transferRequest) {
+        Account from = accountService.getAccountEntityByNumber(authenticatedAccountNumber(authorization));
+        Account to = accountService.getAccountEntityByNumber(transferRequest.getToAccountNumber());
+        return atmService.transfer(from, to, Money.of(transferRequest.getAmount()),
+                idempotencyKey != null ? idempotencyKey : transferRequest.getIdempotencyKey());
+    }
+
+    /**
+     * Get one page of transaction history, newest first.
+     *
+     * @param authorization the Authorization header
+     * @param cursor cursor returned with the previous page, absent for the newest transactions
+     * @param size page size, at most 100
+     * @return the page and the cursor for the next one
+     */
+    @GetMapping("/transactions")
+    public TransactionPage transactions(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                        @RequestParam(required = false) String cursor,
+                                        @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size) {
+        if (size <= 0 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        AccountDTO account = accountService.getAccountByNumber(authenticatedAccountNumber(authorization));
+        return atmService.getTransactionPage(account.getId(), cursor, size);
+    }
+
+    /**
+     * Download the statement of a date range, oldest transaction first.
+     * The statement is written page by page, so its size is limited neither by memory nor by how
+     * long a database connection may be held.
+     *
+     * @param authorization the Authorization header
+     * @param from first day, inclusive; absent for the first transaction
+     * @param to last day, inclusive; absent for today
+     * @param format csv or ndjson
+     * @param response the HTTP response, written as a stream
+     * @throws IOException if writing the statement fails
+     */
+    @GetMapping("/statement")
+    public void statement(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                          @RequestParam(defaultValue = "csv") String format,
+                          HttpServletResponse response) throws IOException {
+        StatementService.Format statementFormat = StatementService.Format.of(format);
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Statement start date must not be after its end date");
+        }
+        AccountDTO account = accountService.getAccountByNumber(authenticatedAccountNumber(authorization));
+
+        response.setContentType(statementFormat.contentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"statement-"
+                + account.getAccountNumber() + "." + statementFormat.extension() + "\"");
+        statementService.writeStatement(account.getId(), from, to, statementFormat, response.getWriter());
+    }
+
+    private String authenticatedAccountNumber(String authorization) {
+        return apiTokenService.resolve(bearerToken(authorization));
+    }
+
+    private String bearerToken(String authorization) {
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return null;
+        }
+        return authorization.substring(BEARER_PREFIX.length()).trim();
+    }
+}
@@ -5,7 +5,8 @@ import com.atm.atm.dto.AccountDTO;
 import com.atm.atm.exception.AccountNotFoundException;
 import com.atm.atm.exception.InvalidPinException;
 import com.atm.atm.service.AccountService;
-import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
@@ -25,6 +26,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 public class AuthController {
 
     private final AccountService accountService;
+    private final WebAuthentication webAuthentication;
 
     /**
      * Display login page.
@@ -40,18 +42,20 @@ public class AuthController {
 
     /**
      * Handle login form submission.
-     * Authenticates user and stores account in session on success.
+     * Authenticates user and signs the account in on success.
      *
      * @param loginRequest the login credentials
      * @param bindingResult validation results
-     * @param session the HTTP session
+     * @param request the HTTP request
+     * @param response the HTTP response
      * @param model the model object
      * @return redirect to dashboard on success, login page on failure
      */
     @PostMapping("/login")
     public String login(@Valid LoginRequest loginRequest,
                         BindingResult bindingResult,
-                        HttpSession session,
+                        HttpServletRequest request,
+                        HttpServletResponse response,
                         Model model) {
 
         // Check for validation errors
@@ -63,12 +67,11 @@ public class AuthController {
             // Authenticate account
             AccountDTO account = accountService.authenticate(
                     loginRequest.getAccountNumber(),
-                    loginRequest.getPin()
+                    loginRequest.getPin(),
+                    request.getRemoteAddr()
             );
 
-            // Store account in session
-            session.setAttribute("account", account);
-            session.setAttribute("accountNumber", account.getAccountNumber());
+            webAuthentication.signIn(account.getAccountNumber(), request, response);
 
             return "redirect:/atm/dashboard";
 
@@ -81,14 +84,15 @@ public class AuthController {
 
     /**
      * Handle logout.
-     * Invalidates the session and redirects to login page.
+     * Signs the account out and redirects to login page.
      *
-     * @param session the HTTP session
+     * @param request the HTTP request
+     * @param response the HTTP response
      * @return redirect to login page
      */
     @GetMapping("/logout")
-    public String logout(HttpSession session) {
-        session.invalidate();
+    public String logout(HttpServletRequest request, HttpServletResponse response) {
+        webAuthentication.signOut(request, response);
         return "redirect:/auth/login?logout=true";
     }
 }
@@ -0,0 +1,147 @@
+package com.atm.atm.controller;
+
+import com.atm.atm.dto.IngestOperation;
+import com.atm.atm.dto.IngestResult;
+import com.atm.atm.exception.InvalidTokenException;
+import com.atm.atm.service.ATMService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Bulk ingestion of operations queued by terminals while they were offline.
+ * The request body is NDJSON, one {@link IngestOperation} per line, and the response is NDJSON
+ * with one {@link IngestResult} per line in the same order. Both are streamed: the body is read
+ * and applied a chunk at a time and each chunk's results are flushed before the next chunk is read,
+ * so a batch of any size never has to fit in memory.
+ *
+ * Terminals authenticate with the shared key configured in {@code atm.ingest.terminal-key}.
+ */
+@RestController
+@RequestMapping("/api/v1")
+public class IngestController {
+
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String TERMINAL_KEY_HEADER = "X-Terminal-Key";
+
+    private final ATMService atmService;
+    private final ObjectMapper objectMapper;
+    private final byte[] terminalKey;
+    private final int chunkSize;
+
+    public IngestController(ATMService atmService,
+                            ObjectMapper objectMapper,
+                            @Value("${atm.ingest.terminal-key:}") String terminalKey,
+                            @Value("${atm.ingest.chunk-size:500}") int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("atm.ingest.chunk-size must be greater than 0");
+        }
+        this.atmService = atmService;
+        this.objectMapper = objectMapper;
+        this.terminalKey = terminalKey.getBytes(StandardCharsets.UTF_8);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Apply a batch of offline withdrawals and deposits.
+     *
+     * @param key the terminal key header
+     * @param request the HTTP request, read as a stream
+     * @param response the HTTP response, written as a stream
+     * @throws IOException if reading the body or writing the results fails
+     */
+    @PostMapping(value = "/ingest", consumes = NDJSON)
+    public void ingest(@RequestHeader(value = TERMINAL_KEY_HEADER, required = false) String key,
+                       HttpServletRequest request,
+                       HttpServletResponse response) throws IOException {
+        authenticate(key);
+
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        OutputStream out = response.getOutputStream();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+
+        List<IngestOperation> chunk = new ArrayList<>(chunkSize);
+        // Parse error of each line in the chunk, null for lines that parsed
+        List<String> parseErrors = new ArrayList<>(chunkSize);
+        int firstIndex = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                IngestOperation operation = objectMapper.readValue(line, IngestOperation.class);
+                chunk.add(operation != null ? operation : new IngestOperation());
+                parseErrors.add(operation != null ? null : "Empty operation");
+            } catch (JacksonException e) {
+                chunk.add(new IngestOperation());
+                parseErrors.add("Malformed operation");
+            }
+            if (chunk.size() == chunkSize) {
+                write(out, apply(chunk, parseErrors, firstIndex));
+                firstIndex += chunk.size();
+                chunk.clear();
+                parseErrors.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            write(out, apply(chunk, parseErrors, firstIndex));
+        }
+    }
+
+    private List<IngestResult> apply(List<IngestOperation> chunk, List<String> parseErrors, int firstIndex) {
+        List<IngestOperation> parsed = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            if (parseErrors.get(i) == null) {
+                parsed.add(chunk.get(i));
+            }
+        }
+
+        // Merge the service's results back with the lines that never reached it
+        Iterator<IngestResult> applied = atmService.ingest(parsed, 0).iterator();
+        List<IngestResult> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            String error = parseErrors.get(i);
+            if (error != null) {
+                results.add(new IngestResult(firstIndex + i, null, "FAILED", null, error));
+            } else {
+                IngestResult result = applied.next();
+                result.setIndex(firstIndex + i);
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    private void write(OutputStream out, List<IngestResult> results) throws IOException {
+        for (IngestResult result : results) {
+            out.write(objectMapper.writeValueAsBytes(result));
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    private void authenticate(String key) {
+        if (terminalKey.length == 0 || key == null
+                || !MessageDigest.isEqual(terminalKey, key.getBytes(StandardCharsets.UTF_8))) {
+            throw new InvalidTokenException("Missing or invalid terminal key");
+        }
+    }
+}
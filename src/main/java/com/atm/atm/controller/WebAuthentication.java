@@ -0,0 +1,131 @@
+package com.atm.atm.controller;
+
+import com.atm.atm.exception.InvalidTokenException;
+import com.atm.atm.service.SessionTokenService;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Tracks which account is signed in to the HTML interface.
+ * In the default {@code token} mode the account number travels in a signed, HttpOnly session
+ * cookie and the server keeps nothing, so any instance can serve any request. In
+ * {@code session} mode it is stored in the {@link HttpSession}. Either way only the account
+ * number is kept; account details and the balance are read through the service layer.
+ */
+@Component
+public class WebAuthentication {
+
+    static final String COOKIE_NAME = "ATM_SESSION";
+    private static final String SESSION_ATTRIBUTE = "accountNumber";
+
+    private final SessionTokenService sessionTokenService;
+    private final boolean stateless;
+
+    public WebAuthentication(SessionTokenService sessionTokenService,
+                             @Value("${atm.web.auth-mode:token}") String authMode) {
+        this.sessionTokenService = sessionTokenService;
+        this.stateless = switch (authMode.toLowerCase(Locale.ROOT)) {
+            case "token" -> true;
+            case "session" -> false;
+            default -> throw new IllegalArgumentException("atm.web.auth-mode must be token or session");
+        };
+    }
+
+    /**
+     * Sign an authenticated account in.
+     *
+     * @param accountNumber the account number
+     * @param request the current request
+     * @param response the current response
+     */
+    public void signIn(String accountNumber, HttpServletRequest request, HttpServletResponse response) {
+        if (stateless) {
+            writeCookie(sessionTokenService.issue(accountNumber), sessionTokenService.ttlSeconds(), request, response);
+        } else {
+            // A fresh session id on login, so a planted session cannot be taken over
+            HttpSession existing = request.getSession(false);
+            if (existing != null) {
+                existing.invalidate();
+            }
+            request.getSession(true).setAttribute(SESSION_ATTRIBUTE, accountNumber);
+        }
+    }
+
+    /**
+     * Get the signed-in account, refreshing a token that is past half of its lifetime.
+     *
+     * @param request the current request
+     * @param response the current response
+     * @return the account number, or null if nobody is signed in or the session has expired
+     */
+    public String accountNumber(HttpServletRequest request, HttpServletResponse response) {
+        if (!stateless) {
+            HttpSession session = request.getSession(false);
+            return session == null ? null : (String) session.getAttribute(SESSION_ATTRIBUTE);
+        }
+
+        String token = readCookie(request);
+        if (token == null) {
+            return null;
+        }
+        try {
+            String accountNumber = sessionTokenService.verify(token);
+            if (sessionTokenService.needsRefresh(token)) {
+                writeCookie(sessionTokenService.issue(accountNumber), sessionTokenService.ttlSeconds(), request, response);
+            }
+            return accountNumber;
+        } catch (InvalidTokenException e) {
+            writeCookie("", 0, request, response);
+            return null;
+        }
+    }
+
+    /**
+     * Sign the current account out.
+     *
+     * @param request the current request
+     * @param response the current response
+     */
+    public void signOut(HttpServletRequest request, HttpServletResponse response) {
+        if (stateless) {
+            writeCookie("", 0, request, response);
+        } else {
+            HttpSession session = request.getSession(false);
+            if (session != null) {
+                session.invalidate();
+            }
+        }
+    }
+
+    private String readCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    private void writeCookie(String value, long maxAgeSeconds, HttpServletRequest request, HttpServletResponse response) {
+        ResponseCookie cookie = ResponseCookie.from(COOKIE_NAME, value)
+                .path("/")
+                .httpOnly(true)
+                .secure(request.isSecure())
+                .sameSite("Lax")
+                .maxAge(maxAgeSeconds)
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+}
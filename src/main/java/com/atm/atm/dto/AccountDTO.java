@@ -1,5 +1,7 @@
 package com.atm.atm.dto;
 
+import com.atm.atm.entity.AccountStatus;
+import com.atm.atm.money.Money;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -17,8 +19,8 @@ public class AccountDTO {
     private Long id;
     private String accountNumber;
     private String accountHolderName;
-    private Double balance;
-    private String status;
+    private Money balance;
+    private AccountStatus status;
     private String email;
     private String phoneNumber;
     private LocalDateTime createdDate;
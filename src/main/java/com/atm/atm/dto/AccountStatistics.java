@@ -0,0 +1,22 @@
+package com.atm.atm.dto;
+
+import com.atm.atm.money.Money;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the activity totals shown on the dashboard.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountStatistics {
+
+    private Money withdrawnToday;
+    private Money depositedToday;
+    private long transactionsToday;
+    private Money withdrawnThisMonth;
+    private Money depositedThisMonth;
+    private long transactionsThisMonth;
+}
@@ -0,0 +1,22 @@
+package com.atm.atm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for an API error response.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApiError {
+
+    // HTTP status code
+    private int status;
+
+    // Short error title, e.g. "Insufficient Balance"
+    private String error;
+
+    private String message;
+}
@@ -0,0 +1,21 @@
+package com.atm.atm.dto;
+
+import com.atm.atm.money.Money;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for the balance of an account at a point in time.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoricalBalance {
+
+    private String accountNumber;
+    private LocalDateTime asOf;
+    private Money balance;
+}
@@ -0,0 +1,27 @@
+package com.atm.atm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO for one operation in an offline terminal batch.
+ * Sent as one JSON object per line; validated per item so a bad line only fails itself.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestOperation {
+
+    private String accountNumber;
+
+    // WITHDRAWAL or DEPOSIT
+    private String type;
+
+    private BigDecimal amount;
+
+    // Key assigned by the terminal, so replaying the same batch cannot apply an operation twice
+    private String idempotencyKey;
+}
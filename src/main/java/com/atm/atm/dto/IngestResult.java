@@ -0,0 +1,28 @@
+package com.atm.atm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the outcome of one operation in an offline terminal batch.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestResult {
+
+    // Zero-based position of the operation in the batch
+    private int index;
+
+    private String accountNumber;
+
+    // APPLIED, REPLAYED (idempotency key seen before) or FAILED
+    private String status;
+
+    // Resulting transaction, null when the operation failed
+    private TransactionDTO transaction;
+
+    // Failure reason, null unless the operation failed
+    private String error;
+}
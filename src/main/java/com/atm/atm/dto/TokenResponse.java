@@ -0,0 +1,23 @@
+package com.atm.atm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for a successful API login.
+ * Carries the bearer token to send on subsequent API requests.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenResponse {
+
+    private String token;
+    private String tokenType;
+
+    // Token lifetime in seconds
+    private long expiresIn;
+
+    private AccountDTO account;
+}
@@ -1,5 +1,8 @@
 package com.atm.atm.dto;
 
+import com.atm.atm.entity.TransactionStatus;
+import com.atm.atm.entity.TransactionType;
+import com.atm.atm.money.Money;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -15,10 +18,10 @@ import java.time.LocalDateTime;
 public class TransactionDTO {
 
     private Long id;
-    private String transactionType;
-    private Double amount;
-    private Double balanceAfterTransaction;
+    private TransactionType transactionType;
+    private Money amount;
+    private Money balanceAfterTransaction;
     private String description;
-    private String status;
+    private TransactionStatus status;
     private LocalDateTime transactionDate;
 }
@@ -0,0 +1,21 @@
+package com.atm.atm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * DTO for one page of transaction history.
+ * Carries an opaque cursor pointing past the last transaction on the page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionPage {
+
+    private List<TransactionDTO> transactions;
+
+    // Cursor for the next (older) page, null when this is the last page
+    private String nextCursor;
+}
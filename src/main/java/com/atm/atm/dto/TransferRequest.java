@@ -0,0 +1,34 @@
+package com.atm.atm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO for transfer request.
+ * Contains the destination account and the amount to transfer to it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferRequest {
+
+    @NotBlank(message = "Destination account is required")
+    private String toAccountNumber;
+
+    @NotNull(message = "Amount is required")
+    @Positive(message = "Amount must be greater than 0")
+    @Digits(integer = 15, fraction = 2, message = "Amount can have at most 2 decimal places")
+    private BigDecimal amount;
+
+    // Repeating a request with the same key returns the first result instead of applying it again
+    @Size(max = 64, message = "Idempotency key can have at most 64 characters")
+    private String idempotencyKey;
+}
@@ -0,0 +1,27 @@
+package com.atm.atm.dto;
+
+import com.atm.atm.entity.AccountStatus;
+import com.atm.atm.money.Money;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * An account read straight into its DTO, together with the version it was read at.
+ * Built by a JPQL constructor expression, so no entity is loaded into the persistence context;
+ * the version lets the account cache tell it apart from a newer copy.
+ */
+@Getter
+public class VersionedAccount {
+
+    private final AccountDTO account;
+    private final long version;
+
+    public VersionedAccount(Long id, String accountNumber, String accountHolderName, Money balance,
+                            AccountStatus status, String email, String phoneNumber,
+                            LocalDateTime createdDate, LocalDateTime lastTransactionDate, Long version) {
+        this.account = new AccountDTO(id, accountNumber, accountHolderName, balance, status, email, phoneNumber,
+                createdDate, lastTransactionDate);
+        this.version = version;
+    }
+}
@@ -3,8 +3,12 @@ package com.atm.atm.dto;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.math.BigDecimal;
 
 /**
  * DTO for withdrawal request.
@@ -17,5 +21,10 @@ public class WithdrawRequest {
 
     @NotNull(message = "Amount is required")
     @Positive(message = "Amount must be greater than 0")
-    private Double amount;
+    @Digits(integer = 15, fraction = 2, message = "Amount can have at most 2 decimal places")
+    private BigDecimal amount;
+
+    // Repeating a request with the same key returns the first result instead of applying it again
+    @Size(max = 64, message = "Idempotency key can have at most 64 characters")
+    private String idempotencyKey;
 }
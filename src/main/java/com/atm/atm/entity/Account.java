@@ -1,5 +1,6 @@
 package com.atm.atm.entity;
 
+import com.atm.atm.money.Money;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -11,7 +12,10 @@ import java.time.LocalDateTime;
  * Contains account details, balance, and PIN for authentication.
  */
 @Entity
-@Table(name = "accounts")
+@Table(name = "accounts", indexes = {
+        // Every login and page view looks accounts up by number
+        @Index(name = "ux_accounts_account_number", columnList = "account_number", unique = true)
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -22,10 +26,10 @@ public class Account {
     private Long id;
 
     // Account number - unique identifier for customers
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String accountNumber;
 
-    // PIN for authentication (in production, this should be hashed)
+    // PIN hash for authentication, see PinHasher
     @Column(nullable = false)
     private String pin;
 
@@ -33,13 +37,13 @@ public class Account {
     @Column(nullable = false)
     private String accountHolderName;
 
-    // Current balance in the account
+    // Current balance in the account, stored as minor units
     @Column(nullable = false)
-    private Double balance;
+    private Money balance;
 
-    // Account status (ACTIVE, INACTIVE, LOCKED, etc.)
+    // Account status, stored as a SMALLINT code
     @Column(nullable = false)
-    private String status;
+    private AccountStatus status;
 
     // Email for notifications
     @Column(unique = true)
@@ -59,12 +63,17 @@ public class Account {
     @Column(nullable = false)
     private Integer failedLoginAttempts;
 
+    // Optimistic lock version, bumped on every balance change
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         createdDate = LocalDateTime.now();
         failedLoginAttempts = 0;
         if (status == null) {
-            status = "ACTIVE";
+            status = AccountStatus.ACTIVE;
         }
     }
 }
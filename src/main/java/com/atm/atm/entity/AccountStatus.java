@@ -0,0 +1,47 @@
+package com.atm.atm.entity;
+
+/**
+ * Status of an account, stored as a SMALLINT code by {@link AccountStatusConverter}.
+ * Codes are persisted, so existing ones must never change; new statuses take new codes.
+ */
+public enum AccountStatus {
+    ACTIVE(1),
+    INACTIVE(2),
+    LOCKED(3);
+
+    // Indexed by code, so reading a row costs no search or allocation
+    private static final AccountStatus[] BY_CODE = new AccountStatus[values().length + 1];
+
+    static {
+        for (AccountStatus status : values()) {
+            BY_CODE[status.code] = status;
+        }
+    }
+
+    private final short code;
+
+    AccountStatus(int code) {
+        this.code = (short) code;
+    }
+
+    /**
+     * @return the code stored in the database
+     */
+    public short code() {
+        return code;
+    }
+
+    /**
+     * Look up a status by its stored code.
+     *
+     * @param code the code stored in the database
+     * @return the status
+     * @throws IllegalArgumentException if no status has that code
+     */
+    public static AccountStatus fromCode(short code) {
+        if (code > 0 && code < BY_CODE.length && BY_CODE[code] != null) {
+            return BY_CODE[code];
+        }
+        throw new IllegalArgumentException("Unknown account status code: " + code);
+    }
+}
@@ -0,0 +1,21 @@
+package com.atm.atm.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * JPA converter storing {@link AccountStatus} as its SMALLINT code.
+ */
+@Converter(autoApply = true)
+public class AccountStatusConverter implements AttributeConverter<AccountStatus, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(AccountStatus accountStatus) {
+        return accountStatus == null ? null : accountStatus.code();
+    }
+
+    @Override
+    public AccountStatus convertToEntityAttribute(Short code) {
+        return code == null ? null : AccountStatus.fromCode(code);
+    }
+}
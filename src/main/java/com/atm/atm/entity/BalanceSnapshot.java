@@ -0,0 +1,53 @@
+package com.atm.atm.entity;
+
+import com.atm.atm.money.Money;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * BalanceSnapshot entity holding an account's end-of-day balance.
+ * One row per account and day with activity; days without transactions have no row,
+ * their balance is the one of the latest earlier snapshot.
+ */
+@Entity
+@Table(name = "balance_snapshots")
+@IdClass(BalanceSnapshot.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceSnapshot {
+
+    // Account the snapshot belongs to
+    @Id
+    @Column(name = "account_id")
+    private Long accountId;
+
+    // Day the snapshot closes
+    @Id
+    @Column(name = "snapshot_date")
+    private LocalDate snapshotDate;
+
+    // Balance after the last transaction of the day, stored as minor units
+    @Column(nullable = false)
+    private Money balance;
+
+    // Id of the last transaction of the day, so an older update cannot overwrite a newer one
+    @Column(nullable = false)
+    private Long lastTransactionId;
+
+    /**
+     * Composite primary key: account id and day.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long accountId;
+        private LocalDate snapshotDate;
+    }
+}
@@ -0,0 +1,38 @@
+package com.atm.atm.entity;
+
+import com.atm.atm.money.Money;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cassette entity representing one note cassette of a cash terminal.
+ * A terminal has one cassette per denomination.
+ */
+@Entity
+@Table(name = "cassettes", indexes = {
+        // A terminal's cassettes are loaded together, one per denomination
+        @Index(name = "ux_cassettes_terminal_denomination", columnList = "terminal_id, denomination", unique = true)
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Cassette {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Terminal the cassette is loaded in
+    @Column(nullable = false)
+    private String terminalId;
+
+    // Value of one note, stored as minor units
+    @Column(nullable = false)
+    private Money denomination;
+
+    // Notes left in the cassette
+    @Column(nullable = false)
+    private Integer noteCount;
+}
@@ -0,0 +1,61 @@
+package com.atm.atm.entity;
+
+import com.atm.atm.money.Money;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * DailyAggregate entity holding an account's running totals for one day and transaction type.
+ * Maintained together with the transaction records, so statistics never scan the transaction log.
+ */
+@Entity
+@Table(name = "daily_aggregates", indexes = {
+        // Loading one day's totals of every account, such as today's withdrawals at startup
+        @Index(name = "idx_daily_aggregates_date_type", columnList = "aggregate_date, transaction_type")
+})
+@IdClass(DailyAggregate.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyAggregate {
+
+    // Account the totals belong to
+    @Id
+    @Column(name = "account_id")
+    private Long accountId;
+
+    // Day the totals cover
+    @Id
+    @Column(name = "aggregate_date")
+    private LocalDate aggregateDate;
+
+    // TransactionType code; a plain short because JPA does not convert key attributes
+    @Id
+    @Column(name = "transaction_type")
+    private short transactionType;
+
+    // Sum of the day's amounts of this type, stored as minor units
+    @Column(nullable = false)
+    private Money totalAmount;
+
+    // Number of the day's transactions of this type
+    @Column(nullable = false)
+    private Long transactionCount;
+
+    /**
+     * Composite primary key: account id, day and transaction type.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long accountId;
+        private LocalDate aggregateDate;
+        private short transactionType;
+    }
+}
@@ -1,5 +1,6 @@
 package com.atm.atm.entity;
 
+import com.atm.atm.money.Money;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -11,14 +12,23 @@ import java.time.LocalDateTime;
  * Tracks all withdrawals, deposits, and other account activities.
  */
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        // History pages: seek by account, newest first
+        @Index(name = "idx_transactions_account_date", columnList = "account_id, transaction_date DESC, id DESC"),
+        // History filtered by transaction type
+        @Index(name = "idx_transactions_account_type_date", columnList = "account_id, transaction_type, transaction_date"),
+        // A client idempotency key can only be used once per account
+        @Index(name = "ux_transactions_account_idempotency_key", columnList = "account_id, idempotency_key", unique = true)
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Transaction {
 
+    // Sequence ids are allocated in blocks, so inserts can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
     // Foreign key to Account
@@ -26,24 +36,32 @@ public class Transaction {
     @JoinColumn(name = "account_id", nullable = false)
     private Account account;
 
-    // Transaction type: WITHDRAWAL, DEPOSIT, TRANSFER, etc.
+    // Transaction type, stored as a SMALLINT code
     @Column(nullable = false)
-    private String transactionType;
+    private TransactionType transactionType;
 
-    // Transaction amount
+    // Transaction amount, stored as minor units
     @Column(nullable = false)
-    private Double amount;
+    private Money amount;
 
-    // Balance after transaction
+    // Balance after transaction, stored as minor units
     @Column(nullable = false)
-    private Double balanceAfterTransaction;
+    private Money balanceAfterTransaction;
 
     // Transaction description or remarks
     private String description;
 
-    // Transaction status: SUCCESS, FAILED, PENDING
+    // Transaction status, stored as a SMALLINT code
     @Column(nullable = false)
-    private String status;
+    private TransactionStatus status;
+
+    // Other account of a transfer leg, null for cash operations
+    @Column(updatable = false)
+    private Long counterpartyAccountId;
+
+    // Client-supplied idempotency key, null when the client sent none
+    @Column(length = 64, updatable = false)
+    private String idempotencyKey;
 
     // Transaction timestamp
     @Column(nullable = false, updatable = false)
@@ -51,9 +69,12 @@ public class Transaction {
 
     @PrePersist
     protected void onCreate() {
-        transactionDate = LocalDateTime.now();
+        // Keep a date set by the service, which also drives the limiter and the daily aggregates
+        if (transactionDate == null) {
+            transactionDate = LocalDateTime.now();
+        }
         if (status == null) {
-            status = "SUCCESS";
+            status = TransactionStatus.SUCCESS;
         }
     }
 }
@@ -0,0 +1,47 @@
+package com.atm.atm.entity;
+
+/**
+ * Status of a transaction record, stored as a SMALLINT code by {@link TransactionStatusConverter}.
+ * Codes are persisted, so existing ones must never change; new statuses take new codes.
+ */
+public enum TransactionStatus {
+    SUCCESS(1),
+    FAILED(2),
+    PENDING(3);
+
+    // Indexed by code, so reading a row costs no search or allocation
+    private static final TransactionStatus[] BY_CODE = new TransactionStatus[values().length + 1];
+
+    static {
+        for (TransactionStatus status : values()) {
+            BY_CODE[status.code] = status;
+        }
+    }
+
+    private final short code;
+
+    TransactionStatus(int code) {
+        this.code = (short) code;
+    }
+
+    /**
+     * @return the code stored in the database
+     */
+    public short code() {
+        return code;
+    }
+
+    /**
+     * Look up a status by its stored code.
+     *
+     * @param code the code stored in the database
+     * @return the status
+     * @throws IllegalArgumentException if no status has that code
+     */
+    public static TransactionStatus fromCode(short code) {
+        if (code > 0 && code < BY_CODE.length && BY_CODE[code] != null) {
+            return BY_CODE[code];
+        }
+        throw new IllegalArgumentException("Unknown transaction status code: " + code);
+    }
+}
@@ -0,0 +1,21 @@
+package com.atm.atm.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * JPA converter storing {@link TransactionStatus} as its SMALLINT code.
+ */
+@Converter(autoApply = true)
+public class TransactionStatusConverter implements AttributeConverter<TransactionStatus, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(TransactionStatus transactionStatus) {
+        return transactionStatus == null ? null : transactionStatus.code();
+    }
+
+    @Override
+    public TransactionStatus convertToEntityAttribute(Short code) {
+        return code == null ? null : TransactionStatus.fromCode(code);
+    }
+}
@@ -0,0 +1,55 @@
+package com.atm.atm.entity;
+
+/**
+ * Type of a transaction record, stored as a SMALLINT code by {@link TransactionTypeConverter}.
+ * Codes are persisted, so existing ones must never change; new types take new codes.
+ */
+public enum TransactionType {
+    WITHDRAWAL(1),
+    DEPOSIT(2),
+    TRANSFER_OUT(3),
+    TRANSFER_IN(4);
+
+    // Indexed by code, so reading a row costs no search or allocation
+    private static final TransactionType[] BY_CODE = new TransactionType[values().length + 1];
+
+    static {
+        for (TransactionType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final short code;
+
+    TransactionType(int code) {
+        this.code = (short) code;
+    }
+
+    /**
+     * @return the code stored in the database
+     */
+    public short code() {
+        return code;
+    }
+
+    /**
+     * @return true if the transaction takes money out of the account
+     */
+    public boolean isDebit() {
+        return this == WITHDRAWAL || this == TRANSFER_OUT;
+    }
+
+    /**
+     * Look up a type by its stored code.
+     *
+     * @param code the code stored in the database
+     * @return the type
+     * @throws IllegalArgumentException if no type has that code
+     */
+    public static TransactionType fromCode(short code) {
+        if (code > 0 && code < BY_CODE.length && BY_CODE[code] != null) {
+            return BY_CODE[code];
+        }
+        throw new IllegalArgumentException("Unknown transaction type code: " + code);
+    }
+}
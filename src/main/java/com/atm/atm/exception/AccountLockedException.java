@@ -0,0 +1,14 @@
+package com.atm.atm.exception;
+
+/**
+ * Exception thrown when authentication is refused because the account is locked.
+ */
+public class AccountLockedException extends InvalidPinException {
+    public AccountLockedException(String message) {
+        super(message);
+    }
+
+    public AccountLockedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
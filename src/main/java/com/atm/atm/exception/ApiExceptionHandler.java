@@ -0,0 +1,179 @@
+package com.atm.atm.exception;
+
+import com.atm.atm.controller.ApiController;
+import com.atm.atm.controller.IngestController;
+import com.atm.atm.dto.ApiError;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.MissingServletRequestParameterException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+
+import java.util.stream.Collectors;
+
+/**
+ * Exception handler for the JSON API.
+ * Takes precedence over {@link GlobalExceptionHandler} for the API controllers,
+ * so API clients get a JSON error body instead of the error view.
+ */
+@RestControllerAdvice(assignableTypes = {ApiController.class, IngestController.class})
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ApiExceptionHandler {
+
+    /**
+     * Handle InvalidTokenException.
+     *
+     * @param ex the exception
+     * @return 401 error response
+     */
+    @ExceptionHandler(InvalidTokenException.class)
+    public ResponseEntity<ApiError> handleInvalidToken(InvalidTokenException ex) {
+        return error(HttpStatus.UNAUTHORIZED, "Unauthorized", ex.getMessage());
+    }
+
+    /**
+     * Handle LoginThrottledException.
+     *
+     * @param ex the exception
+     * @return 429 error response
+     */
+    @ExceptionHandler(LoginThrottledException.class)
+    public ResponseEntity<ApiError> handleLoginThrottled(LoginThrottledException ex) {
+        return error(HttpStatus.TOO_MANY_REQUESTS, "Too Many Attempts", ex.getMessage());
+    }
+
+    /**
+     * Handle InvalidPinException.
+     *
+     * @param ex the exception
+     * @return 401 error response
+     */
+    @ExceptionHandler(InvalidPinException.class)
+    public ResponseEntity<ApiError> handleInvalidPin(InvalidPinException ex) {
+        return error(HttpStatus.UNAUTHORIZED, "Authentication Failed", ex.getMessage());
+    }
+
+    /**
+     * Handle AccountNotFoundException.
+     *
+     * @param ex the exception
+     * @return 404 error response
+     */
+    @ExceptionHandler(AccountNotFoundException.class)
+    public ResponseEntity<ApiError> handleAccountNotFound(AccountNotFoundException ex) {
+        return error(HttpStatus.NOT_FOUND, "Account Not Found", ex.getMessage());
+    }
+
+    /**
+     * Handle InsufficientBalanceException.
+     *
+     * @param ex the exception
+     * @return 422 error response
+     */
+    @ExceptionHandler(InsufficientBalanceException.class)
+    public ResponseEntity<ApiError> handleInsufficientBalance(InsufficientBalanceException ex) {
+        return error(HttpStatus.UNPROCESSABLE_CONTENT, "Insufficient Balance", ex.getMessage());
+    }
+
+    /**
+     * Handle WithdrawalLimitExceededException.
+     *
+     * @param ex the exception
+     * @return 422 error response
+     */
+    @ExceptionHandler(WithdrawalLimitExceededException.class)
+    public ResponseEntity<ApiError> handleWithdrawalLimitExceeded(WithdrawalLimitExceededException ex) {
+        return error(HttpStatus.UNPROCESSABLE_CONTENT, "Withdrawal Limit Exceeded", ex.getMessage());
+    }
+
+    /**
+     * Handle CashUnavailableException.
+     *
+     * @param ex the exception
+     * @return 422 error response
+     */
+    @ExceptionHandler(CashUnavailableException.class)
+    public ResponseEntity<ApiError> handleCashUnavailable(CashUnavailableException ex) {
+        return error(HttpStatus.UNPROCESSABLE_CONTENT, "Cash Unavailable", ex.getMessage());
+    }
+
+    /**
+     * Handle InvalidAmountException.
+     *
+     * @param ex the exception
+     * @return 400 error response
+     */
+    @ExceptionHandler(InvalidAmountException.class)
+    public ResponseEntity<ApiError> handleInvalidAmount(InvalidAmountException ex) {
+        return error(HttpStatus.BAD_REQUEST, "Invalid Amount", ex.getMessage());
+    }
+
+    /**
+     * Handle IdempotencyKeyConflictException.
+     *
+     * @param ex the exception
+     * @return 409 error response
+     */
+    @ExceptionHandler(IdempotencyKeyConflictException.class)
+    public ResponseEntity<ApiError> handleIdempotencyKeyConflict(IdempotencyKeyConflictException ex) {
+        return error(HttpStatus.CONFLICT, "Idempotency Key Conflict", ex.getMessage());
+    }
+
+    /**
+     * Handle request body validation failures.
+     *
+     * @param ex the exception
+     * @return 400 error response listing the invalid fields
+     */
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<ApiError> handleValidation(MethodArgumentNotValidException ex) {
+        String message = ex.getBindingResult().getFieldErrors().stream()
+                .map(FieldError::getDefaultMessage)
+                .collect(Collectors.joining("; "));
+        return error(HttpStatus.BAD_REQUEST, "Invalid Request", message);
+    }
+
+    /**
+     * Handle malformed parameters such as an invalid history cursor.
+     *
+     * @param ex the exception
+     * @return 400 error response
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ApiError> handleIllegalArgument(IllegalArgumentException ex) {
+        return error(HttpStatus.BAD_REQUEST, "Invalid Request", ex.getMessage());
+    }
+
+    /**
+     * Handle unreadable request bodies and missing or mistyped parameters.
+     *
+     * @param ex the exception
+     * @return 400 error response
+     */
+    @ExceptionHandler({HttpMessageNotReadableException.class, MethodArgumentTypeMismatchException.class,
+            MissingServletRequestParameterException.class})
+    public ResponseEntity<ApiError> handleMalformedRequest(Exception ex) {
+        return error(HttpStatus.BAD_REQUEST, "Invalid Request", "Malformed request");
+    }
+
+    /**
+     * Handle generic exceptions.
+     *
+     * @param ex the exception
+     * @return 500 error response
+     */
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ApiError> handleGenericException(Exception ex) {
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, "An Error Occurred", "Something went wrong. Please try again later.");
+    }
+
+    private ResponseEntity<ApiError> error(HttpStatus status, String error, String message) {
+        return ResponseEntity.status(status).body(new ApiError(status.value(), error, message));
+    }
+}
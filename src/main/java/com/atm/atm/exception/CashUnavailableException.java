@@ -0,0 +1,14 @@
+package com.atm.atm.exception;
+
+/**
+ * Exception thrown when a terminal cannot dispense an amount with the notes it holds.
+ */
+public class CashUnavailableException extends RuntimeException {
+    public CashUnavailableException(String message) {
+        super(message);
+    }
+
+    public CashUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -53,6 +53,34 @@ public class GlobalExceptionHandler {
         return "error";
     }
 
+    /**
+     * Handle WithdrawalLimitExceededException.
+     *
+     * @param ex the exception
+     * @param model the model object
+     * @return error view
+     */
+    @ExceptionHandler(WithdrawalLimitExceededException.class)
+    public String handleWithdrawalLimitExceeded(WithdrawalLimitExceededException ex, Model model) {
+        model.addAttribute("errorTitle", "Withdrawal Limit Exceeded");
+        model.addAttribute("errorMessage", ex.getMessage());
+        return "error";
+    }
+
+    /**
+     * Handle CashUnavailableException.
+     *
+     * @param ex the exception
+     * @param model the model object
+     * @return error view
+     */
+    @ExceptionHandler(CashUnavailableException.class)
+    public String handleCashUnavailable(CashUnavailableException ex, Model model) {
+        model.addAttribute("errorTitle", "Cash Unavailable");
+        model.addAttribute("errorMessage", ex.getMessage());
+        return "error";
+    }
+
     /**
      * Handle InvalidAmountException.
      *
@@ -67,6 +95,20 @@ public class GlobalExceptionHandler {
         return "error";
     }
 
+    /**
+     * Handle IdempotencyKeyConflictException.
+     *
+     * @param ex the exception
+     * @param model the model object
+     * @return error view
+     */
+    @ExceptionHandler(IdempotencyKeyConflictException.class)
+    public String handleIdempotencyKeyConflict(IdempotencyKeyConflictException ex, Model model) {
+        model.addAttribute("errorTitle", "Duplicate Request");
+        model.addAttribute("errorMessage", ex.getMessage());
+        return "error";
+    }
+
     /**
      * Handle generic exceptions.
      *
@@ -0,0 +1,14 @@
+package com.atm.atm.exception;
+
+/**
+ * Exception thrown when an idempotency key is reused for a different operation or amount.
+ */
+public class IdempotencyKeyConflictException extends RuntimeException {
+    public IdempotencyKeyConflictException(String message) {
+        super(message);
+    }
+
+    public IdempotencyKeyConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
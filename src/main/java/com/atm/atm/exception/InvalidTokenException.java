@@ -0,0 +1,14 @@
+package com.atm.atm.exception;
+
+/**
+ * Exception thrown when an API request carries a missing, unknown or expired access token.
+ */
+public class InvalidTokenException extends RuntimeException {
+    public InvalidTokenException(String message) {
+        super(message);
+    }
+
+    public InvalidTokenException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
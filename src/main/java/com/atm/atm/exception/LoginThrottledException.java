@@ -0,0 +1,15 @@
+package com.atm.atm.exception;
+
+/**
+ * Exception thrown when a login attempt is refused because too many attempts from the
+ * same client address have failed recently.
+ */
+public class LoginThrottledException extends InvalidPinException {
+    public LoginThrottledException(String message) {
+        super(message);
+    }
+
+    public LoginThrottledException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,14 @@
+package com.atm.atm.exception;
+
+/**
+ * Exception thrown when a withdrawal exceeds the per-transaction or daily withdrawal limit.
+ */
+public class WithdrawalLimitExceededException extends RuntimeException {
+    public WithdrawalLimitExceededException(String message) {
+        super(message);
+    }
+
+    public WithdrawalLimitExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,20 +1,35 @@
 package com.atm.atm.init;
 
 import com.atm.atm.entity.Account;
+import com.atm.atm.entity.AccountStatus;
+import com.atm.atm.entity.Cassette;
+import com.atm.atm.money.Money;
 import com.atm.atm.repository.AccountRepository;
+import com.atm.atm.repository.CassetteRepository;
+import com.atm.atm.service.PinHasher;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
 /**
  * Initialize sample data on application startup.
- * Creates test accounts for demonstration purposes.
+ * Creates test accounts and loads the default terminal's cassettes for demonstration purposes.
  */
 @Component
 @RequiredArgsConstructor
 public class DataInitializer implements CommandLineRunner {
 
+    // Denominations and note counts of the default terminal's cassettes
+    private static final long[] DENOMINATIONS = {5000, 1000, 500, 100};
+    private static final int NOTES_PER_CASSETTE = 2500;
+
     private final AccountRepository accountRepository;
+    private final CassetteRepository cassetteRepository;
+    private final PinHasher pinHasher;
+
+    @Value("${atm.cash.default-terminal-id:ATM-001}")
+    private String defaultTerminalId;
 
     @Override
     public void run(String... args) {
@@ -24,28 +39,28 @@ public class DataInitializer implements CommandLineRunner {
         // Create sample accounts
         Account account1 = new Account();
         account1.setAccountNumber("1001");
-        account1.setPin("1234");
+        account1.setPin(pinHasher.hash("1234"));
         account1.setAccountHolderName("John Paul");
-        account1.setBalance(50000.0);
-        account1.setStatus("ACTIVE");
+        account1.setBalance(Money.ofMajor(50000));
+        account1.setStatus(AccountStatus.ACTIVE);
         account1.setEmail("johnp@gmail.com");
         account1.setPhoneNumber("0706647669");
 
         Account account2 = new Account();
         account2.setAccountNumber("1002");
-        account2.setPin("5678");
+        account2.setPin(pinHasher.hash("5678"));
         account2.setAccountHolderName("Derrick");
-        account2.setBalance(75000.0);
-        account2.setStatus("ACTIVE");
+        account2.setBalance(Money.ofMajor(75000));
+        account2.setStatus(AccountStatus.ACTIVE);
         account2.setEmail("derrick@gmail.com");
         account2.setPhoneNumber("0778654321");
 
         Account account3 = new Account();
         account3.setAccountNumber("1003");
-        account3.setPin("9012");
+        account3.setPin(pinHasher.hash("9012"));
         account3.setAccountHolderName("Mary");
-        account3.setBalance(100000.0);
-        account3.setStatus("ACTIVE");
+        account3.setBalance(Money.ofMajor(100000));
+        account3.setStatus(AccountStatus.ACTIVE);
         account3.setEmail("mary@gmail.com");
         account3.setPhoneNumber("0741234567");
 
@@ -54,6 +69,16 @@ public class DataInitializer implements CommandLineRunner {
         accountRepository.save(account2);
         accountRepository.save(account3);
 
+        // Load the default terminal
+        cassetteRepository.deleteAll();
+        for (long denomination : DENOMINATIONS) {
+            Cassette cassette = new Cassette();
+            cassette.setTerminalId(defaultTerminalId);
+            cassette.setDenomination(Money.ofMajor(denomination));
+            cassette.setNoteCount(NOTES_PER_CASSETTE);
+            cassetteRepository.save(cassette);
+        }
+
         System.out.println("Sample accounts initialized successfully!");
         System.out.println("Test Credentials:");
         System.out.println("Account 1: 1001 / PIN: 1234");
@@ -0,0 +1,109 @@
+package com.atm.atm.metrics;
+
+import com.atm.atm.service.AccountCache;
+import com.atm.atm.service.AccountLockManager;
+import com.atm.atm.service.IdempotencyStore;
+import com.atm.atm.service.LoginAttemptTracker;
+import com.atm.atm.service.RecentTransactionsCache;
+import com.atm.atm.service.TransactionJournal;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gauges and counters over the in-process caches, the account locks, the transaction journal
+ * and the login attempt tracker.
+ * Connection pool metrics come from Spring Boot's Hikari instrumentation.
+ */
+@Component
+public class AtmMeterBinder implements MeterBinder {
+
+    private final AccountCache accountCache;
+    private final IdempotencyStore idempotencyStore;
+    private final RecentTransactionsCache recentTransactionsCache;
+    private final AccountLockManager accountLockManager;
+    private final TransactionJournal transactionJournal;
+    private final LoginAttemptTracker loginAttemptTracker;
+
+    public AtmMeterBinder(AccountCache accountCache,
+                          IdempotencyStore idempotencyStore,
+                          RecentTransactionsCache recentTransactionsCache,
+                          AccountLockManager accountLockManager,
+                          TransactionJournal transactionJournal,
+                          LoginAttemptTracker loginAttemptTracker) {
+        this.accountCache = accountCache;
+        this.idempotencyStore = idempotencyStore;
+        this.recentTransactionsCache = recentTransactionsCache;
+        this.accountLockManager = accountLockManager;
+        this.transactionJournal = transactionJournal;
+        this.loginAttemptTracker = loginAttemptTracker;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("atm.cache.requests", accountCache, cache -> cache.stats().hits())
+                .tag("cache", "account").tag("result", "hit").register(registry);
+        FunctionCounter.builder("atm.cache.requests", accountCache, cache -> cache.stats().misses())
+                .tag("cache", "account").tag("result", "miss").register(registry);
+        FunctionCounter.builder("atm.cache.evictions", accountCache, cache -> cache.stats().evictions())
+                .tag("cache", "account").register(registry);
+        Gauge.builder("atm.cache.size", accountCache, cache -> cache.stats().size())
+                .tag("cache", "account").register(registry);
+
+        FunctionCounter.builder("atm.cache.requests", idempotencyStore, store -> store.stats().hits())
+                .tag("cache", "idempotency").tag("result", "hit").register(registry);
+        FunctionCounter.builder("atm.cache.requests", idempotencyStore, store -> store.stats().misses())
+                .tag("cache", "idempotency").tag("result", "miss").register(registry);
+        FunctionCounter.builder("atm.cache.evictions", idempotencyStore, store -> store.stats().evictions())
+                .tag("cache", "idempotency").register(registry);
+        Gauge.builder("atm.cache.size", idempotencyStore, store -> store.stats().size())
+                .tag("cache", "idempotency").register(registry);
+
+        FunctionCounter.builder("atm.cache.requests", recentTransactionsCache, cache -> cache.stats().hits())
+                .tag("cache", "recent-transactions").tag("result", "hit").register(registry);
+        FunctionCounter.builder("atm.cache.requests", recentTransactionsCache, cache -> cache.stats().misses())
+                .tag("cache", "recent-transactions").tag("result", "miss").register(registry);
+        FunctionCounter.builder("atm.cache.evictions", recentTransactionsCache, cache -> cache.stats().evictions())
+                .tag("cache", "recent-transactions").register(registry);
+        Gauge.builder("atm.cache.size", recentTransactionsCache, cache -> cache.stats().size())
+                .tag("cache", "recent-transactions").register(registry);
+
+        Gauge.builder("atm.locks.active", accountLockManager, AccountLockManager::activeLocks)
+                .description("Per-account locks currently held or waited on, over all stripes").register(registry);
+        for (int i = 0; i < accountLockManager.stripeCount(); i++) {
+            int stripe = i;
+            String tag = String.valueOf(stripe);
+            FunctionCounter.builder("atm.locks.acquisitions", accountLockManager,
+                            locks -> locks.stats(stripe).acquisitions())
+                    .description("Account locks taken in this stripe").tag("stripe", tag).register(registry);
+            FunctionTimer.builder("atm.locks.wait", accountLockManager,
+                            locks -> locks.stats(stripe).contendedAcquisitions(),
+                            locks -> locks.stats(stripe).totalWaitNanos(), TimeUnit.NANOSECONDS)
+                    .description("Time spent waiting for a contended account lock in this stripe")
+                    .tag("stripe", tag).register(registry);
+            TimeGauge.builder("atm.locks.wait.max", accountLockManager, TimeUnit.NANOSECONDS,
+                            locks -> locks.stats(stripe).maxWaitNanos())
+                    .description("Longest wait for an account lock in this stripe since startup")
+                    .tag("stripe", tag).register(registry);
+        }
+
+        FunctionCounter.builder("atm.journal.batches", transactionJournal, journal -> journal.stats().batches())
+                .register(registry);
+        FunctionCounter.builder("atm.journal.operations", transactionJournal, journal -> journal.stats().operations())
+                .register(registry);
+        FunctionCounter.builder("atm.journal.replayed.batches", transactionJournal, journal -> journal.stats().replayedBatches())
+                .register(registry);
+        Gauge.builder("atm.journal.largest.batch", transactionJournal, journal -> journal.stats().largestBatch())
+                .register(registry);
+
+        FunctionCounter.builder("atm.login.rejected", loginAttemptTracker, LoginAttemptTracker::rejectedAttempts)
+                .description("Login attempts refused by the failed-attempt limits without checking the PIN")
+                .register(registry);
+    }
+}
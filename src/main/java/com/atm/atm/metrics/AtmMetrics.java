@@ -0,0 +1,90 @@
+package com.atm.atm.metrics;
+
+import com.atm.atm.exception.AccountLockedException;
+import com.atm.atm.exception.AccountNotFoundException;
+import com.atm.atm.exception.CashUnavailableException;
+import com.atm.atm.exception.IdempotencyKeyConflictException;
+import com.atm.atm.exception.InsufficientBalanceException;
+import com.atm.atm.exception.InvalidAmountException;
+import com.atm.atm.exception.InvalidPinException;
+import com.atm.atm.exception.LoginThrottledException;
+import com.atm.atm.exception.WithdrawalLimitExceededException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Timers for the ATM service operations.
+ * Every operation is recorded in the {@code atm.operation} timer, tagged with the operation
+ * and its outcome, and published as a percentile histogram. The timer's count per outcome
+ * doubles as the outcome counter (success, insufficient_balance, invalid_amount, locked, ...).
+ */
+@Component
+public class AtmMetrics {
+
+    public static final String OPERATION_TIMER = "atm.operation";
+
+    private final MeterRegistry registry;
+    private final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public AtmMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Run an operation and record its duration and outcome.
+     *
+     * @param operation the operation name, such as withdraw
+     * @param action the operation
+     * @return the operation's result
+     */
+    public <T> T time(String operation, Supplier<T> action) {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "error";
+        try {
+            T result = action.get();
+            outcome = "success";
+            return result;
+        } catch (RuntimeException e) {
+            outcome = outcomeOf(e);
+            throw e;
+        } finally {
+            sample.stop(timer(operation, outcome));
+        }
+    }
+
+    private Timer timer(String operation, String outcome) {
+        return timers.computeIfAbsent(operation + '/' + outcome, key -> Timer.builder(OPERATION_TIMER)
+                .description("ATM service operations")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    private static String outcomeOf(RuntimeException e) {
+        if (e instanceof InsufficientBalanceException) {
+            return "insufficient_balance";
+        } else if (e instanceof InvalidAmountException) {
+            return "invalid_amount";
+        } else if (e instanceof LoginThrottledException) {
+            return "throttled";
+        } else if (e instanceof AccountLockedException) {
+            return "locked";
+        } else if (e instanceof InvalidPinException) {
+            return "invalid_pin";
+        } else if (e instanceof AccountNotFoundException) {
+            return "account_not_found";
+        } else if (e instanceof WithdrawalLimitExceededException) {
+            return "limit_exceeded";
+        } else if (e instanceof CashUnavailableException) {
+            return "cash_unavailable";
+        } else if (e instanceof IdempotencyKeyConflictException) {
+            return "idempotency_conflict";
+        }
+        return "error";
+    }
+}
@@ -0,0 +1,59 @@
+package com.atm.atm.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the SQL statements Hibernate prepares on behalf of the current thread.
+ * Registered through {@code hibernate.session_factory.statement_inspector}; the statement
+ * itself is passed through unchanged. {@link RequestQueryCountFilter} reads and resets the
+ * count around every HTTP request.
+ *
+ * Work handed to another thread, such as the transaction journal's writer, is counted
+ * against the thread that handed it over: that thread passes its {@link #current()} counter
+ * along and the worker counts into it with {@link #attributeTo}.
+ */
+public class QueryCounter implements StatementInspector {
+
+    private static final ThreadLocal<AtomicInteger> COUNT = ThreadLocal.withInitial(AtomicInteger::new);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get().incrementAndGet();
+        return sql;
+    }
+
+    /**
+     * Start counting from zero on the current thread.
+     */
+    public static void reset() {
+        COUNT.get().set(0);
+    }
+
+    /**
+     * @return statements prepared on the current thread since the last reset
+     */
+    public static int count() {
+        return COUNT.get().get();
+    }
+
+    /**
+     * @return the current thread's counter, to hand to a thread doing work on its behalf
+     */
+    public static AtomicInteger current() {
+        return COUNT.get();
+    }
+
+    /**
+     * Count the current thread's statements into another counter until the returned one is restored.
+     *
+     * @param counter the counter to count into
+     * @return the counter in use until now, to pass back in when done
+     */
+    public static AtomicInteger attributeTo(AtomicInteger counter) {
+        AtomicInteger previous = COUNT.get();
+        COUNT.set(counter);
+        return previous;
+    }
+}
@@ -0,0 +1,145 @@
+package com.atm.atm.money;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+
+/**
+ * Immutable monetary amount stored as a whole number of minor units (cents).
+ * All arithmetic is exact long arithmetic; the hot paths work on {@link #minorUnits()}
+ * directly and only wrap the result at the edges.
+ *
+ * Extends {@link Number} so views can format it like any other number
+ * (e.g. Thymeleaf's {@code #numbers.formatDecimal}).
+ */
+public final class Money extends Number implements Comparable<Money> {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int SCALE = 2;
+    public static final long MINOR_UNITS_PER_MAJOR = 100;
+    public static final Money ZERO = new Money(0);
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    /**
+     * Create an amount from minor units.
+     *
+     * @param minorUnits the amount in cents
+     * @return the amount
+     */
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    /**
+     * Create an amount from whole major units.
+     *
+     * @param majorUnits the amount in whole currency units
+     * @return the amount
+     * @throws ArithmeticException if the amount overflows
+     */
+    public static Money ofMajor(long majorUnits) {
+        return ofMinor(Math.multiplyExact(majorUnits, MINOR_UNITS_PER_MAJOR));
+    }
+
+    /**
+     * Create an amount from a decimal value.
+     *
+     * @param amount the amount in major units
+     * @return the amount
+     * @throws IllegalArgumentException if the amount has more than two decimal places or overflows
+     */
+    public static Money of(BigDecimal amount) {
+        try {
+            return ofMinor(amount.movePointRight(SCALE).longValueExact());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Invalid amount: " + amount.toPlainString(), e);
+        }
+    }
+
+    /**
+     * @return the amount in minor units
+     */
+    public long minorUnits() {
+        return minorUnits;
+    }
+
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money negate() {
+        return ofMinor(Math.negateExact(minorUnits));
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    /**
+     * @return the amount as a decimal in major units; also its JSON representation
+     */
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    @Override
+    public int intValue() {
+        return (int) longValue();
+    }
+
+    /**
+     * @return the whole major units, truncated
+     */
+    @Override
+    public long longValue() {
+        return minorUnits / MINOR_UNITS_PER_MAJOR;
+    }
+
+    @Override
+    public float floatValue() {
+        return (float) doubleValue();
+    }
+
+    @Override
+    public double doubleValue() {
+        return minorUnits / (double) MINOR_UNITS_PER_MAJOR;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Money other && minorUnits == other.minorUnits);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    /**
+     * @return the amount in major units with two decimals, e.g. {@code 1500.00}
+     */
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -1,9 +1,18 @@
 package com.atm.atm.repository;
 
+import com.atm.atm.dto.VersionedAccount;
 import com.atm.atm.entity.Account;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -20,10 +29,103 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
      */
     Optional<Account> findByAccountNumber(String accountNumber);
 
+    /**
+     * Read an account by account number straight into its DTO, without loading the entity.
+     * @param accountNumber the account number to search for
+     * @return Optional containing the account and its version if found
+     */
+    @Query("SELECT new com.atm.atm.dto.VersionedAccount(a.id, a.accountNumber, a.accountHolderName, a.balance, "
+            + "a.status, a.email, a.phoneNumber, a.createdDate, a.lastTransactionDate, a.version) "
+            + "FROM Account a WHERE a.accountNumber = :accountNumber")
+    Optional<VersionedAccount> findDtoByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    /**
+     * Find all accounts with the given account numbers.
+     * @param accountNumbers the account numbers to search for
+     * @return the accounts found, in no particular order
+     */
+    List<Account> findByAccountNumberIn(Collection<String> accountNumbers);
+
+    /**
+     * Find the numbers of all accounts, in id order.
+     * @return every account number
+     */
+    @Query("SELECT a.accountNumber FROM Account a ORDER BY a.id")
+    List<String> findAllAccountNumbers();
+
     /**
      * Check if an account exists by account number.
      * @param accountNumber the account number to check
      * @return true if account exists, false otherwise
      */
     boolean existsByAccountNumber(String accountNumber);
+
+    /**
+     * Debit an account only if it holds enough funds.
+     * Runs as a single conditional UPDATE, so concurrent withdrawals cannot lose an update.
+     * @param id the account id
+     * @param amount the amount to debit, in minor units
+     * @param now the transaction timestamp
+     * @return 1 if the account was debited, 0 if the balance was insufficient or the account does not exist
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE accounts SET balance = balance - :amount, last_transaction_date = :now, version = version + 1 "
+            + "WHERE id = :id AND balance >= :amount", nativeQuery = true)
+    int debitIfSufficient(@Param("id") Long id, @Param("amount") long amount, @Param("now") LocalDateTime now);
+
+    /**
+     * Credit an account in a single UPDATE.
+     * @param id the account id
+     * @param amount the amount to credit, in minor units
+     * @param now the transaction timestamp
+     * @return 1 if the account was credited, 0 if the account does not exist
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE accounts SET balance = balance + :amount, last_transaction_date = :now, version = version + 1 "
+            + "WHERE id = :id", nativeQuery = true)
+    int credit(@Param("id") Long id, @Param("amount") long amount, @Param("now") LocalDateTime now);
+
+    /**
+     * Lock an account after too many failed logins, in a single UPDATE.
+     * @param id the account id
+     * @param failedLoginAttempts the number of failed attempts to record
+     * @return 1 if the account was locked, 0 if it was already locked or does not exist
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Account a SET a.status = com.atm.atm.entity.AccountStatus.LOCKED, "
+            + "a.failedLoginAttempts = :failedLoginAttempts, a.version = a.version + 1 "
+            + "WHERE a.id = :id AND a.status <> com.atm.atm.entity.AccountStatus.LOCKED")
+    int lock(@Param("id") Long id, @Param("failedLoginAttempts") int failedLoginAttempts);
+
+    /**
+     * Replace a PIN hash, only if it is still the one that was checked.
+     * Leaves the version alone, so a balance change in flight is not failed by a login.
+     * @param id the account id
+     * @param oldPin the stored PIN that was verified
+     * @param newPin the new PIN hash
+     * @return 1 if the PIN was replaced, 0 if it had changed meanwhile or the account does not exist
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Account a SET a.pin = :newPin WHERE a.id = :id AND a.pin = :oldPin")
+    int replacePin(@Param("id") Long id, @Param("oldPin") String oldPin, @Param("newPin") String newPin);
+
+    /**
+     * Clear the failed login count, without changing the version.
+     * @param id the account id
+     * @return 1 if the count was cleared, 0 if it was already zero or the account does not exist
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Account a SET a.failedLoginAttempts = 0 WHERE a.id = :id AND a.failedLoginAttempts <> 0")
+    int clearFailedLoginAttempts(@Param("id") Long id);
+
+    /**
+     * Lock a set of accounts for update, in ascending id order.
+     * Locking rows in one global order keeps concurrent multi-account updates, such as
+     * opposing transfers, from deadlocking in the database.
+     * @param ids the account ids
+     * @return the locked accounts, ordered by id
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id IN :ids ORDER BY a.id")
+    List<Account> lockAllByIdOrdered(@Param("ids") Collection<Long> ids);
 }
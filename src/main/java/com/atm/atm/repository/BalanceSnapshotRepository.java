@@ -0,0 +1,74 @@
+package com.atm.atm.repository;
+
+import com.atm.atm.entity.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Repository interface for BalanceSnapshot entity.
+ * Provides the snapshot lookup and the statements that maintain snapshots from the transaction log.
+ */
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, BalanceSnapshot.Key> {
+
+    /**
+     * Find the latest snapshot of an account taken before a day.
+     * @param accountId the account id
+     * @param date the day, exclusive
+     * @return Optional containing the snapshot if the account had activity before that day
+     */
+    Optional<BalanceSnapshot> findFirstByAccountIdAndSnapshotDateLessThanOrderBySnapshotDateDesc(Long accountId, LocalDate date);
+
+    /**
+     * Record the balance after a transaction as the account's snapshot for its day.
+     * Keeps the existing row if it already reflects a later transaction.
+     * @param accountId the account id
+     * @param snapshotDate the day of the transaction
+     * @param balance the balance after the transaction, in minor units
+     * @param transactionId the transaction id
+     * @return the number of rows inserted or updated
+     */
+    @Modifying
+    @Query(value = "MERGE INTO balance_snapshots s "
+            + "USING (VALUES (CAST(:accountId AS BIGINT), CAST(:snapshotDate AS DATE), CAST(:balance AS BIGINT), CAST(:transactionId AS BIGINT))) "
+            + "AS v(account_id, snapshot_date, balance, last_transaction_id) "
+            + "ON s.account_id = v.account_id AND s.snapshot_date = v.snapshot_date "
+            + "WHEN MATCHED AND s.last_transaction_id < v.last_transaction_id THEN "
+            + "UPDATE SET balance = v.balance, last_transaction_id = v.last_transaction_id "
+            + "WHEN NOT MATCHED THEN "
+            + "INSERT (account_id, snapshot_date, balance, last_transaction_id) "
+            + "VALUES (v.account_id, v.snapshot_date, v.balance, v.last_transaction_id)", nativeQuery = true)
+    int upsert(@Param("accountId") Long accountId,
+               @Param("snapshotDate") LocalDate snapshotDate,
+               @Param("balance") long balance,
+               @Param("transactionId") Long transactionId);
+
+    /**
+     * Delete every snapshot of an account.
+     * @param accountId the account id
+     * @return the number of rows deleted
+     */
+    @Modifying
+    @Query(value = "DELETE FROM balance_snapshots WHERE account_id = :accountId", nativeQuery = true)
+    int deleteAllByAccountId(@Param("accountId") Long accountId);
+
+    /**
+     * Recreate the snapshots of an account from its transactions, one per day with activity.
+     * @param accountId the account id
+     * @return the number of snapshots written
+     */
+    @Modifying
+    @Query(value = "INSERT INTO balance_snapshots (account_id, snapshot_date, balance, last_transaction_id) "
+            + "SELECT account_id, snapshot_date, balance_after_transaction, id FROM ("
+            + "SELECT t.account_id, CAST(t.transaction_date AS DATE) AS snapshot_date, t.balance_after_transaction, t.id, "
+            + "ROW_NUMBER() OVER (PARTITION BY CAST(t.transaction_date AS DATE) ORDER BY t.transaction_date DESC, t.id DESC) AS rn "
+            + "FROM transactions t WHERE t.account_id = :accountId) last_of_day "
+            + "WHERE rn = 1", nativeQuery = true)
+    int rebuildFromTransactions(@Param("accountId") Long accountId);
+}
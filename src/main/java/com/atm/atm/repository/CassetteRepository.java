@@ -0,0 +1,35 @@
+package com.atm.atm.repository;
+
+import com.atm.atm.entity.Cassette;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository interface for Cassette entity.
+ * Provides terminal inventory lookups and note count updates.
+ */
+@Repository
+public interface CassetteRepository extends JpaRepository<Cassette, Long> {
+
+    /**
+     * Find the cassettes of a terminal.
+     * @param terminalId the terminal id
+     * @return the terminal's cassettes, in no particular order
+     */
+    List<Cassette> findByTerminalId(String terminalId);
+
+    /**
+     * Take notes out of a cassette in a single UPDATE.
+     * @param id the cassette id
+     * @param notes the number of notes dispensed
+     * @return 1 if the cassette was updated, 0 if it does not exist
+     */
+    @Modifying
+    @Query(value = "UPDATE cassettes SET note_count = note_count - :notes WHERE id = :id", nativeQuery = true)
+    int dispense(@Param("id") Long id, @Param("notes") int notes);
+}
@@ -0,0 +1,63 @@
+package com.atm.atm.repository;
+
+import com.atm.atm.entity.DailyAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repository interface for DailyAggregate entity.
+ * Provides range reads for statistics and the statement that maintains the running totals.
+ */
+@Repository
+public interface DailyAggregateRepository extends JpaRepository<DailyAggregate, DailyAggregate.Key> {
+
+    /**
+     * Find the totals of an account over a range of days.
+     * Reads a contiguous range of the primary key, at most one row per day and transaction type.
+     * @param accountId the account id
+     * @param from first day, inclusive
+     * @param to last day, inclusive
+     * @return the totals of the range, in no particular order
+     */
+    List<DailyAggregate> findByAccountIdAndAggregateDateBetween(Long accountId, LocalDate from, LocalDate to);
+
+    /**
+     * Find the totals of every account for one day and transaction type.
+     * @param aggregateDate the day
+     * @param transactionType the transaction type code
+     * @return one row per account with activity of that type on that day
+     */
+    List<DailyAggregate> findByAggregateDateAndTransactionType(LocalDate aggregateDate, short transactionType);
+
+    /**
+     * Add amounts to the running totals of an account, day and transaction type.
+     * @param accountId the account id
+     * @param aggregateDate the day
+     * @param transactionType the transaction type code
+     * @param amount the amount to add, in minor units
+     * @param count the number of transactions to add
+     * @return the number of rows inserted or updated
+     */
+    @Modifying
+    @Query(value = "MERGE INTO daily_aggregates a "
+            + "USING (VALUES (CAST(:accountId AS BIGINT), CAST(:aggregateDate AS DATE), CAST(:transactionType AS SMALLINT), "
+            + "CAST(:amount AS BIGINT), CAST(:count AS BIGINT))) "
+            + "AS v(account_id, aggregate_date, transaction_type, total_amount, transaction_count) "
+            + "ON a.account_id = v.account_id AND a.aggregate_date = v.aggregate_date AND a.transaction_type = v.transaction_type "
+            + "WHEN MATCHED THEN "
+            + "UPDATE SET total_amount = a.total_amount + v.total_amount, transaction_count = a.transaction_count + v.transaction_count "
+            + "WHEN NOT MATCHED THEN "
+            + "INSERT (account_id, aggregate_date, transaction_type, total_amount, transaction_count) "
+            + "VALUES (v.account_id, v.aggregate_date, v.transaction_type, v.total_amount, v.transaction_count)", nativeQuery = true)
+    int add(@Param("accountId") Long accountId,
+            @Param("aggregateDate") LocalDate aggregateDate,
+            @Param("transactionType") short transactionType,
+            @Param("amount") long amount,
+            @Param("count") long count);
+}
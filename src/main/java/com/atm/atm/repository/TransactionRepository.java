@@ -1,11 +1,19 @@
 package com.atm.atm.repository;
 
+import com.atm.atm.dto.TransactionDTO;
 import com.atm.atm.entity.Account;
 import com.atm.atm.entity.Transaction;
+import com.atm.atm.entity.TransactionType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository interface for Transaction entity.
@@ -14,6 +22,17 @@ import java.util.List;
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 
+    /**
+     * Rows read per query while writing a statement.
+     */
+    int STATEMENT_PAGE_SIZE = 500;
+
+    /**
+     * Selects transactions straight into {@link TransactionDTO}s, so read paths load no entities.
+     */
+    String SELECT_DTO = "SELECT new com.atm.atm.dto.TransactionDTO(t.id, t.transactionType, t.amount, "
+            + "t.balanceAfterTransaction, t.description, t.status, t.transactionDate) FROM Transaction t ";
+
     /**
      * Find all transactions for a specific account, ordered by date descending.
      * @param account the account to find transactions for
@@ -24,8 +43,105 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     /**
      * Find all transactions for a specific account with a given type.
      * @param account the account to find transactions for
-     * @param transactionType the type of transaction (WITHDRAWAL, DEPOSIT, etc.)
+     * @param transactionType the type of transaction
      * @return List of matching transactions
      */
-    List<Transaction> findByAccountAndTransactionTypeOrderByTransactionDateDesc(Account account, String transactionType);
+    List<Transaction> findByAccountAndTransactionTypeOrderByTransactionDateDesc(Account account, TransactionType transactionType);
+
+    /**
+     * Read the newest transactions of an account as DTOs, newest first.
+     * @param accountId the account id
+     * @param limit maximum number of rows to return
+     * @return the first page of transactions
+     */
+    @Query(SELECT_DTO + "WHERE t.account.id = :accountId ORDER BY t.transactionDate DESC, t.id DESC")
+    List<TransactionDTO> findHistory(@Param("accountId") Long accountId, Limit limit);
+
+    /**
+     * Read the transactions of an account that are older than a keyset position as DTOs, newest first.
+     * Seeks on (transactionDate, id) instead of using an offset, so every page costs the same.
+     * @param accountId the account id
+     * @param transactionDate date of the last transaction on the previous page
+     * @param id id of the last transaction on the previous page
+     * @param limit maximum number of rows to return
+     * @return the next page of transactions
+     */
+    @Query(SELECT_DTO + "WHERE t.account.id = :accountId "
+            + "AND (t.transactionDate < :transactionDate OR (t.transactionDate = :transactionDate AND t.id < :id)) "
+            + "ORDER BY t.transactionDate DESC, t.id DESC")
+    List<TransactionDTO> findHistoryBefore(@Param("accountId") Long accountId,
+                                           @Param("transactionDate") LocalDateTime transactionDate,
+                                           @Param("id") Long id,
+                                           Limit limit);
+
+    /**
+     * Find the last transaction of an account within a time range.
+     * @param accountId the account id
+     * @param from start of the range, inclusive
+     * @param to end of the range, inclusive
+     * @return Optional containing the latest transaction in the range
+     */
+    Optional<Transaction> findFirstByAccountIdAndTransactionDateBetweenOrderByTransactionDateDescIdDesc(
+            Long accountId, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Find the first transaction of an account after a point in time.
+     * @param accountId the account id
+     * @param after the point in time, exclusive
+     * @return Optional containing the earliest later transaction
+     */
+    Optional<Transaction> findFirstByAccountIdAndTransactionDateAfterOrderByTransactionDateAscIdAsc(
+            Long accountId, LocalDateTime after);
+
+    /**
+     * Find the transaction an account recorded under an idempotency key.
+     * @param accountId the account id
+     * @param idempotencyKey the client-supplied key
+     * @return Optional containing the transaction if the key was used
+     */
+    Optional<Transaction> findByAccountIdAndIdempotencyKey(Long accountId, String idempotencyKey);
+
+    /**
+     * Find the transactions recorded under any of a set of idempotency keys by any of a set of accounts.
+     * Callers match the results back to exact (account, key) pairs.
+     * @param accountIds the account ids
+     * @param idempotencyKeys the client-supplied keys
+     * @return the matching transactions
+     */
+    List<Transaction> findByAccountIdInAndIdempotencyKeyIn(Collection<Long> accountIds, Collection<String> idempotencyKeys);
+
+    /**
+     * Read the oldest transactions of an account within a date range as DTOs, oldest first.
+     * @param accountId the account id
+     * @param from start of the range, inclusive
+     * @param to end of the range, exclusive
+     * @param limit maximum number of rows to return
+     * @return the first page of the statement
+     */
+    @Query(SELECT_DTO + "WHERE t.account.id = :accountId AND t.transactionDate >= :from AND t.transactionDate < :to "
+            + "ORDER BY t.transactionDate, t.id")
+    List<TransactionDTO> findStatement(@Param("accountId") Long accountId,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to,
+                                       Limit limit);
+
+    /**
+     * Read the transactions of an account that follow a keyset position, up to the end of a
+     * date range, as DTOs, oldest first.
+     * @param accountId the account id
+     * @param transactionDate date of the last transaction on the previous page
+     * @param id id of the last transaction on the previous page
+     * @param to end of the range, exclusive
+     * @param limit maximum number of rows to return
+     * @return the next page of the statement
+     */
+    @Query(SELECT_DTO + "WHERE t.account.id = :accountId "
+            + "AND (t.transactionDate > :transactionDate OR (t.transactionDate = :transactionDate AND t.id > :id)) "
+            + "AND t.transactionDate < :to "
+            + "ORDER BY t.transactionDate, t.id")
+    List<TransactionDTO> findStatementAfter(@Param("accountId") Long accountId,
+                                            @Param("transactionDate") LocalDateTime transactionDate,
+                                            @Param("id") Long id,
+                                            @Param("to") LocalDateTime to,
+                                            Limit limit);
 }
@@ -1,18 +1,44 @@
 package com.atm.atm.service;
 
+import com.atm.atm.dto.IngestOperation;
+import com.atm.atm.dto.IngestResult;
 import com.atm.atm.dto.TransactionDTO;
+import com.atm.atm.dto.TransactionPage;
 import com.atm.atm.entity.Account;
 import com.atm.atm.entity.Transaction;
+import com.atm.atm.entity.TransactionStatus;
+import com.atm.atm.entity.TransactionType;
+import com.atm.atm.exception.AccountNotFoundException;
+import com.atm.atm.exception.CashUnavailableException;
+import com.atm.atm.exception.IdempotencyKeyConflictException;
 import com.atm.atm.exception.InsufficientBalanceException;
 import com.atm.atm.exception.InvalidAmountException;
+import com.atm.atm.exception.WithdrawalLimitExceededException;
+import com.atm.atm.metrics.AtmMetrics;
+import com.atm.atm.money.Money;
 import com.atm.atm.repository.AccountRepository;
 import com.atm.atm.repository.TransactionRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -24,119 +50,714 @@ import java.util.stream.Collectors;
 @Transactional
 public class ATMService {
 
+    private static final int MAX_CONFLICT_RETRIES = 3;
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
+    // Cash operations must be whole multiples of 100, expressed in minor units
+    private static final long CASH_MULTIPLE = 100 * Money.MINOR_UNITS_PER_MAJOR;
+
     private final AccountRepository accountRepository;
     private final TransactionRepository transactionRepository;
+    private final TransactionJournal transactionJournal;
+    private final TransactionTemplate transactionTemplate;
+    private final AccountLockManager accountLockManager;
+    private final AccountCache accountCache;
+    private final IdempotencyStore idempotencyStore;
+    private final BalanceSnapshotService balanceSnapshotService;
+    private final AccountStatisticsService accountStatisticsService;
+    private final WithdrawalLimiter withdrawalLimiter;
+    private final CashInventory cashInventory;
+    private final RecentTransactionsCache recentTransactionsCache;
+    private final AtmMetrics atmMetrics;
 
     /**
      * Withdraw cash from the account.
-     * Validates amount and checks for sufficient balance.
      *
      * @param account the account to withdraw from
      * @param amount the amount to withdraw
      * @return TransactionDTO representing the completed transaction
      * @throws InvalidAmountException if amount is invalid
      * @throws InsufficientBalanceException if balance is insufficient
+     * @throws WithdrawalLimitExceededException if the per-transaction or daily limit would be exceeded
      */
-    public TransactionDTO withdraw(Account account, Double amount) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public TransactionDTO withdraw(Account account, Money amount) {
+        return withdraw(account, amount, null);
+    }
+
+    /**
+     * Withdraw cash from the account, at most once per idempotency key.
+     * Validates amount and debits the balance with a conditional update,
+     * so concurrent withdrawals on the same account can never overdraw it or lose an update.
+     * Same-account requests are serialized in memory first, so they queue on a JVM lock
+     * instead of retrying against the database. The debit is committed together with
+     * other requests' operations through the {@link TransactionJournal}.
+     *
+     * @param account the account to withdraw from
+     * @param amount the amount to withdraw
+     * @param idempotencyKey client-supplied key; a repeated key returns the first result, null to disable
+     * @return TransactionDTO representing the completed (or replayed) transaction
+     * @throws InvalidAmountException if amount is invalid
+     * @throws InsufficientBalanceException if balance is insufficient
+     * @throws WithdrawalLimitExceededException if the per-transaction or daily limit would be exceeded
+     * @throws IdempotencyKeyConflictException if the key was used for a different operation
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public TransactionDTO withdraw(Account account, Money amount, String idempotencyKey) {
+        return withdraw(account, amount, idempotencyKey, null);
+    }
+
+    /**
+     * Withdraw cash from the account at a given terminal, at most once per idempotency key.
+     * The notes are reserved from the terminal's inventory before the account is debited, so an
+     * amount the terminal cannot make up is refused without touching the balance, and they are
+     * taken out of its cassettes in the same database transaction as the debit.
+     *
+     * @param account the account to withdraw from
+     * @param amount the amount to withdraw
+     * @param idempotencyKey client-supplied key; a repeated key returns the first result, null to disable
+     * @param terminalId the terminal paying out, null for the default terminal
+     * @return TransactionDTO representing the completed (or replayed) transaction
+     * @throws InvalidAmountException if amount is invalid
+     * @throws InsufficientBalanceException if balance is insufficient
+     * @throws WithdrawalLimitExceededException if the per-transaction or daily limit would be exceeded
+     * @throws CashUnavailableException if the terminal cannot dispense the amount
+     * @throws IdempotencyKeyConflictException if the key was used for a different operation
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public TransactionDTO withdraw(Account account, Money amount, String idempotencyKey, String terminalId) {
+        return atmMetrics.time("withdraw", () -> performWithdrawal(account, amount, idempotencyKey, terminalId));
+    }
+
+    private TransactionDTO performWithdrawal(Account account, Money amount, String idempotencyKey, String terminalId) {
+        long amountMinor = amount.minorUnits();
+
         // Validate amount
-        if (amount <= 0) {
+        if (amountMinor <= 0) {
             throw new InvalidAmountException("Withdrawal amount must be greater than 0");
         }
 
-        if (amount % 100 != 0) {
+        if (amountMinor % CASH_MULTIPLE != 0) {
             throw new InvalidAmountException("Withdrawal amount must be in multiples of 100");
         }
 
-        // Check balance
-        if (account.getBalance() < amount) {
-            throw new InsufficientBalanceException(
-                    String.format("Insufficient balance. Current balance: %.2f, Requested: %.2f",
-                            account.getBalance(), amount));
-        }
-
-        // Update account balance
-        account.setBalance(account.getBalance() - amount);
-        account.setLastTransactionDate(LocalDateTime.now());
-        accountRepository.save(account);
+        withdrawalLimiter.checkAmount(amountMinor);
 
-        // Create transaction record
-        Transaction transaction = new Transaction();
-        transaction.setAccount(account);
-        transaction.setTransactionType("WITHDRAWAL");
-        transaction.setAmount(amount);
-        transaction.setBalanceAfterTransaction(account.getBalance());
-        transaction.setDescription("Cash withdrawal");
-        transaction.setStatus("SUCCESS");
-        transaction.setTransactionDate(LocalDateTime.now());
-
-        transactionRepository.save(transaction);
-
-        return mapToDTO(transaction);
+        String key = normalizeKey(idempotencyKey);
+        return accountLockManager.withLock(account.getAccountNumber(), () ->
+                executeOnce(account, TransactionType.WITHDRAWAL, amountMinor, null, key, () -> {
+                    // Checked inside the operation, so a replayed idempotency key is never refused
+                    withdrawalLimiter.check(account.getId(), amountMinor);
+                    return List.of(applyCashWithdrawal(account.getId(), amountMinor, key, terminalId));
+                }));
     }
 
     /**
      * Deposit cash to the account.
-     * Validates amount before depositing.
      *
      * @param account the account to deposit to
      * @param amount the amount to deposit
      * @return TransactionDTO representing the completed transaction
      * @throws InvalidAmountException if amount is invalid
      */
-    public TransactionDTO deposit(Account account, Double amount) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public TransactionDTO deposit(Account account, Money amount) {
+        return deposit(account, amount, null);
+    }
+
+    /**
+     * Deposit cash to the account, at most once per idempotency key.
+     * Validates amount before depositing.
+     *
+     * @param account the account to deposit to
+     * @param amount the amount to deposit
+     * @param idempotencyKey client-supplied key; a repeated key returns the first result, null to disable
+     * @return TransactionDTO representing the completed (or replayed) transaction
+     * @throws InvalidAmountException if amount is invalid
+     * @throws IdempotencyKeyConflictException if the key was used for a different operation
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public TransactionDTO deposit(Account account, Money amount, String idempotencyKey) {
+        return atmMetrics.time("deposit", () -> performDeposit(account, amount, idempotencyKey));
+    }
+
+    private TransactionDTO performDeposit(Account account, Money amount, String idempotencyKey) {
+        long amountMinor = amount.minorUnits();
+
         // Validate amount
-        if (amount <= 0) {
+        if (amountMinor <= 0) {
             throw new InvalidAmountException("Deposit amount must be greater than 0");
         }
 
-        if (amount % 100 != 0) {
+        if (amountMinor % CASH_MULTIPLE != 0) {
             throw new InvalidAmountException("Deposit amount must be in multiples of 100");
         }
 
-        // Update account balance
-        account.setBalance(account.getBalance() + amount);
-        account.setLastTransactionDate(LocalDateTime.now());
-        accountRepository.save(account);
+        String key = normalizeKey(idempotencyKey);
+        return accountLockManager.withLock(account.getAccountNumber(), () ->
+                executeOnce(account, TransactionType.DEPOSIT, amountMinor, null, key,
+                        () -> List.of(applyDeposit(account.getId(), amountMinor, key))));
+    }
+
+    /**
+     * Transfer money between two accounts.
+     *
+     * @param from the account to debit
+     * @param to the account to credit
+     * @param amount the amount to transfer
+     * @return TransactionDTO of the outgoing leg
+     * @throws InvalidAmountException if amount is invalid or both accounts are the same
+     * @throws InsufficientBalanceException if the source balance is insufficient
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public TransactionDTO transfer(Account from, Account to, Money amount) {
+        return transfer(from, to, amount, null);
+    }
+
+    /**
+     * Transfer money between two accounts, at most once per idempotency key.
+     * The debit, the credit and both transaction legs are committed in one database
+     * transaction. Both accounts are locked in memory in account number order and their
+     * rows are locked in id order, so opposing transfers between the same accounts cannot deadlock.
+     *
+     * @param from the account to debit
+     * @param to the account to credit
+     * @param amount the amount to transfer
+     * @param idempotencyKey client-supplied key, scoped to the source account; null to disable
+     * @return TransactionDTO of the outgoing leg
+     * @throws InvalidAmountException if amount is invalid or both accounts are the same
+     * @throws InsufficientBalanceException if the source balance is insufficient
+     * @throws IdempotencyKeyConflictException if the key was used for a different operation
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public TransactionDTO transfer(Account from, Account to, Money amount, String idempotencyKey) {
+        return atmMetrics.time("transfer", () -> performTransfer(from, to, amount, idempotencyKey));
+    }
+
+    private TransactionDTO performTransfer(Account from, Account to, Money amount, String idempotencyKey) {
+        long amountMinor = amount.minorUnits();
+
+        // Validate amount
+        if (amountMinor <= 0) {
+            throw new InvalidAmountException("Transfer amount must be greater than 0");
+        }
+
+        if (from.getId().equals(to.getId())) {
+            throw new InvalidAmountException("Cannot transfer to the same account");
+        }
+
+        String key = normalizeKey(idempotencyKey);
+        return accountLockManager.withLocks(from.getAccountNumber(), to.getAccountNumber(), () ->
+                executeOnce(from, TransactionType.TRANSFER_OUT, amountMinor, to.getId(), key,
+                        () -> applyTransfer(from.getId(), to.getId(), amountMinor, key)));
+    }
+
+    /**
+     * Run a balance operation through the journal, unless its idempotency key has already
+     * been used, in which case the first result is returned without touching the balance.
+     * Recent keys are answered from memory. An older key is caught by the unique index on
+     * the transactions table, which rolls the repeated operation back.
+     * A key counts as repeated only for the same type, amount and counterparty.
+     * Must be called while holding the account lock.
+     *
+     * @param counterpartyId the destination of a transfer, null for cash operations
+     * @return the first transaction record of the operation
+     */
+    private TransactionDTO executeOnce(Account account, TransactionType type, long amount, Long counterpartyId,
+                                       String key, Supplier<List<Transaction>> operation) {
+        if (key != null) {
+            IdempotencyStore.Recorded previous = idempotencyStore.get(account.getId(), key);
+            if (previous != null) {
+                return replay(previous.result(), previous.counterpartyAccountId(), type, amount, counterpartyId);
+            }
+        }
+
+        TransactionDTO result;
+        try {
+            result = retryOnConflict(() -> mapToDTO(transactionJournal.submitAll(operation).get(0)));
+        } catch (DataIntegrityViolationException e) {
+            Transaction recorded = key == null ? null
+                    : transactionRepository.findByAccountIdAndIdempotencyKey(account.getId(), key).orElse(null);
+            if (recorded == null) {
+                throw e;
+            }
+            result = replay(mapToDTO(recorded), recorded.getCounterpartyAccountId(), type, amount, counterpartyId);
+        }
+
+        if (key != null) {
+            idempotencyStore.put(account.getId(), key, new IdempotencyStore.Recorded(result, counterpartyId));
+        }
+        return result;
+    }
+
+    /**
+     * Apply a chunk of operations replayed by an offline terminal.
+     * Every item is validated on its own; the valid ones are grouped by account and applied
+     * in their original order per account, all in one database transaction with one batched
+     * insert of the resulting transaction records. A rejected item (invalid amount, unknown
+     * account, insufficient balance, reused idempotency key) fails alone. Offline withdrawals
+     * have already been paid out, so they count towards the daily limit but are not refused by it.
+     *
+     * @param operations the operations, in terminal order
+     * @param firstIndex batch position of the first operation, used to number the results
+     * @return one result per operation, in the same order
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<IngestResult> ingest(List<IngestOperation> operations, int firstIndex) {
+        return atmMetrics.time("ingest", () -> performIngest(operations, firstIndex));
+    }
+
+    private List<IngestResult> performIngest(List<IngestOperation> operations, int firstIndex) {
+        IngestResult[] results = new IngestResult[operations.size()];
+
+        Set<String> accountNumbers = operations.stream()
+                .map(IngestOperation::getAccountNumber)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, Account> accounts = accountNumbers.isEmpty() ? Map.of()
+                : accountRepository.findByAccountNumberIn(accountNumbers).stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, account -> account));
+
+        // Group by account id, so rows are always changed in the same order
+        Map<Long, List<IngestItem>> groups = new TreeMap<>();
+        for (int i = 0; i < operations.size(); i++) {
+            IngestOperation operation = operations.get(i);
+            int index = firstIndex + i;
+            try {
+                Account account = accounts.get(operation.getAccountNumber());
+                if (account == null) {
+                    throw new AccountNotFoundException("Account not found: " + operation.getAccountNumber());
+                }
+                IngestItem item = validateIngestItem(i, account, operation);
+                groups.computeIfAbsent(account.getId(), id -> new ArrayList<>()).add(item);
+            } catch (RuntimeException e) {
+                results[i] = new IngestResult(index, operation.getAccountNumber(), "FAILED", null, e.getMessage());
+            }
+        }
+
+        if (!groups.isEmpty()) {
+            List<String> locked = groups.values().stream()
+                    .map(items -> items.get(0).account().getAccountNumber())
+                    .toList();
+            accountLockManager.withLocks(locked, () -> {
+                applyIngestGroups(groups, results, firstIndex);
+                return null;
+            });
+        }
+        return Arrays.asList(results);
+    }
+
+    private IngestItem validateIngestItem(int position, Account account, IngestOperation operation) {
+        TransactionType type = switch (operation.getType()) {
+            case "WITHDRAWAL" -> TransactionType.WITHDRAWAL;
+            case "DEPOSIT" -> TransactionType.DEPOSIT;
+            case null, default -> throw new InvalidAmountException("Operation type must be WITHDRAWAL or DEPOSIT");
+        };
+        if (operation.getAmount() == null) {
+            throw new InvalidAmountException("Amount is required");
+        }
+        long amountMinor = Money.of(operation.getAmount()).minorUnits();
+        if (amountMinor <= 0) {
+            throw new InvalidAmountException("Amount must be greater than 0");
+        }
+        if (amountMinor % CASH_MULTIPLE != 0) {
+            throw new InvalidAmountException("Amount must be in multiples of 100");
+        }
+        return new IngestItem(position, account, type, amountMinor, normalizeKey(operation.getIdempotencyKey()));
+    }
+
+    /**
+     * Apply grouped ingest items. Must be called while holding the locks of every grouped account.
+     */
+    private void applyIngestGroups(Map<Long, List<IngestItem>> groups, IngestResult[] results, int firstIndex) {
+        List<IngestItem> pending = new ArrayList<>();
+        Map<IdempotencyRef, IngestItem> firstByKey = new HashMap<>();
+        List<IngestItem> repeatedInChunk = new ArrayList<>();
+        List<IngestItem> keyedMisses = new ArrayList<>();
+
+        // Answer repeated keys from memory where possible
+        for (List<IngestItem> items : groups.values()) {
+            for (IngestItem item : items) {
+                if (item.key() == null) {
+                    pending.add(item);
+                    continue;
+                }
+                IdempotencyRef ref = new IdempotencyRef(item.account().getId(), item.key());
+                if (firstByKey.putIfAbsent(ref, item) != null) {
+                    repeatedInChunk.add(item);
+                    continue;
+                }
+                IdempotencyStore.Recorded previous = idempotencyStore.get(ref.accountId(), ref.key());
+                if (previous != null) {
+                    results[item.position()] = replayedResult(item, previous.result(), firstIndex);
+                } else {
+                    keyedMisses.add(item);
+                }
+            }
+        }
+
+        // One query for the keys that have left the in-memory store
+        Map<IdempotencyRef, TransactionDTO> recorded = new HashMap<>();
+        if (!keyedMisses.isEmpty()) {
+            transactionRepository.findByAccountIdInAndIdempotencyKeyIn(
+                            keyedMisses.stream().map(item -> item.account().getId()).collect(Collectors.toSet()),
+                            keyedMisses.stream().map(IngestItem::key).collect(Collectors.toSet()))
+                    .forEach(transaction -> recorded.put(
+                            new IdempotencyRef(transaction.getAccount().getId(), transaction.getIdempotencyKey()),
+                            mapToDTO(transaction)));
+        }
+        for (IngestItem item : keyedMisses) {
+            TransactionDTO previous = recorded.get(new IdempotencyRef(item.account().getId(), item.key()));
+            if (previous != null) {
+                idempotencyStore.put(item.account().getId(), item.key(), previous);
+                results[item.position()] = replayedResult(item, previous, firstIndex);
+            } else {
+                pending.add(item);
+            }
+        }
+        // Keep each account's operations in terminal order
+        pending.sort((a, b) -> a.account().getId().equals(b.account().getId())
+                ? Integer.compare(a.position(), b.position())
+                : a.account().getId().compareTo(b.account().getId()));
+
+        try {
+            List<IngestResult> applied = transactionTemplate.execute(status -> applyIngestItems(pending, firstIndex));
+            for (int i = 0; i < pending.size(); i++) {
+                results[pending.get(i).position()] = applied.get(i);
+            }
+        } catch (RuntimeException e) {
+            // Fall back to one transaction per item so one bad item cannot fail the others
+            for (IngestItem item : pending) {
+                results[item.position()] = applyIngestItemAlone(item, firstIndex);
+            }
+        }
+
+        for (IngestItem item : pending) {
+            IngestResult result = results[item.position()];
+            if (item.key() != null && result.getTransaction() != null) {
+                idempotencyStore.put(item.account().getId(), item.key(), result.getTransaction());
+            }
+        }
+
+        // A key repeated within the chunk gets the outcome of its first use
+        for (IngestItem item : repeatedInChunk) {
+            IngestItem first = firstByKey.get(new IdempotencyRef(item.account().getId(), item.key()));
+            IngestResult firstResult = results[first.position()];
+            results[item.position()] = firstResult.getTransaction() == null
+                    ? new IngestResult(firstIndex + item.position(), item.account().getAccountNumber(),
+                    "FAILED", null, firstResult.getError())
+                    : replayedResult(item, firstResult.getTransaction(), firstIndex);
+        }
+    }
+
+    /**
+     * Apply pending ingest items in order and insert their records in one flush.
+     * Must run inside a transaction.
+     *
+     * @return one result per pending item, in the same order
+     */
+    private List<IngestResult> applyIngestItems(List<IngestItem> pending, int firstIndex) {
+        List<Transaction> records = new ArrayList<>(pending.size());
+        List<Transaction> perItem = new ArrayList<>(pending.size());
+        List<String> errors = new ArrayList<>(pending.size());
+        for (IngestItem item : pending) {
+            try {
+                Transaction transaction = applyIngestItem(item);
+                records.add(transaction);
+                perItem.add(transaction);
+                errors.add(null);
+            } catch (InsufficientBalanceException | AccountNotFoundException e) {
+                perItem.add(null);
+                errors.add(e.getMessage());
+            }
+        }
+
+        transactionRepository.saveAll(records);
+        transactionRepository.flush();
+        balanceSnapshotService.record(records);
+        accountStatisticsService.record(records);
+        recentTransactionsCache.appendAfterCommit(records);
+
+        List<IngestResult> applied = new ArrayList<>(pending.size());
+        for (int i = 0; i < pending.size(); i++) {
+            IngestItem item = pending.get(i);
+            Transaction transaction = perItem.get(i);
+            applied.add(new IngestResult(firstIndex + item.position(), item.account().getAccountNumber(),
+                    transaction == null ? "FAILED" : "APPLIED",
+                    transaction == null ? null : mapToDTO(transaction), errors.get(i)));
+        }
+        return applied;
+    }
+
+    private IngestResult applyIngestItemAlone(IngestItem item, int firstIndex) {
+        String accountNumber = item.account().getAccountNumber();
+        try {
+            TransactionDTO transaction = executeOnce(item.account(), item.type(), item.amount(), null, item.key(),
+                    () -> List.of(applyIngestItem(item)));
+            return new IngestResult(firstIndex + item.position(), accountNumber, "APPLIED", transaction, null);
+        } catch (RuntimeException e) {
+            return new IngestResult(firstIndex + item.position(), accountNumber, "FAILED", null, e.getMessage());
+        }
+    }
+
+    private Transaction applyIngestItem(IngestItem item) {
+        return item.type() == TransactionType.WITHDRAWAL
+                ? applyWithdrawal(item.account().getId(), item.amount(), item.key())
+                : applyDeposit(item.account().getId(), item.amount(), item.key());
+    }
+
+    private IngestResult replayedResult(IngestItem item, TransactionDTO previous, int firstIndex) {
+        String accountNumber = item.account().getAccountNumber();
+        try {
+            // Ingested operations are cash only; a key first used for a transfer already differs by type
+            return new IngestResult(firstIndex + item.position(), accountNumber, "REPLAYED",
+                    replay(previous, null, item.type(), item.amount(), null), null);
+        } catch (IdempotencyKeyConflictException e) {
+            return new IngestResult(firstIndex + item.position(), accountNumber, "FAILED", null, e.getMessage());
+        }
+    }
+
+    private TransactionDTO replay(TransactionDTO previous, Long previousCounterpartyId,
+                                  TransactionType type, long amount, Long counterpartyId) {
+        if (previous.getTransactionType() != type || previous.getAmount().minorUnits() != amount
+                || !Objects.equals(previousCounterpartyId, counterpartyId)) {
+            throw new IdempotencyKeyConflictException("Idempotency key was already used for a different request");
+        }
+        return previous;
+    }
+
+    private String normalizeKey(String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return null;
+        }
+        String key = idempotencyKey.trim();
+        if (key.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new IllegalArgumentException(
+                    "Idempotency key must be at most " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+        return key;
+    }
+
+    /**
+     * Debit the account and build the withdrawal record.
+     * Must run inside a transaction; throws before writing anything if the debit is rejected.
+     */
+    private Transaction applyWithdrawal(Long accountId, long amount, String idempotencyKey) {
+        LocalDateTime now = LocalDateTime.now();
+
+        // Check balance and debit in one statement
+        if (accountRepository.debitIfSufficient(accountId, amount, now) == 0) {
+            Account current = findAccount(accountId);
+            throw new InsufficientBalanceException(
+                    String.format("Insufficient balance. Current balance: %s, Requested: %s",
+                            current.getBalance(), Money.ofMinor(amount)));
+        }
+        withdrawalLimiter.recordAfterCommit(accountId, amount, now.toLocalDate());
+
+        return buildTransaction(findAccount(accountId), TransactionType.WITHDRAWAL, amount, "Cash withdrawal", idempotencyKey, now);
+    }
+
+    /**
+     * Reserve the notes, debit the account and take the notes out of the terminal's cassettes.
+     * Must run inside a transaction.
+     */
+    private Transaction applyCashWithdrawal(Long accountId, long amount, String idempotencyKey, String terminalId) {
+        CashInventory.Reservation cash = cashInventory.reserve(terminalId, amount);
+        Transaction transaction;
+        try {
+            transaction = applyWithdrawal(accountId, amount, idempotencyKey);
+        } catch (RuntimeException e) {
+            cashInventory.release(cash);
+            throw e;
+        }
+        cashInventory.dispense(cash);
+        return transaction;
+    }
+
+    /**
+     * Credit the account and build the deposit record.
+     * Must run inside a transaction.
+     */
+    private Transaction applyDeposit(Long accountId, long amount, String idempotencyKey) {
+        LocalDateTime now = LocalDateTime.now();
+
+        if (accountRepository.credit(accountId, amount, now) == 0) {
+            throw new AccountNotFoundException("Account not found: " + accountId);
+        }
+
+        return buildTransaction(findAccount(accountId), TransactionType.DEPOSIT, amount, "Cash deposit", idempotencyKey, now);
+    }
+
+    /**
+     * Debit one account, credit the other and build both transfer legs.
+     * Must run inside a transaction; both rows are locked in id order before either is changed,
+     * and the debit comes first so a rejected transfer writes nothing.
+     */
+    private List<Transaction> applyTransfer(Long fromId, Long toId, long amount, String idempotencyKey) {
+        LocalDateTime now = LocalDateTime.now();
+
+        if (accountRepository.lockAllByIdOrdered(List.of(fromId, toId)).size() < 2) {
+            throw new AccountNotFoundException("Account not found: "
+                    + (accountRepository.existsById(fromId) ? toId : fromId));
+        }
+
+        if (accountRepository.debitIfSufficient(fromId, amount, now) == 0) {
+            Account current = findAccount(fromId);
+            throw new InsufficientBalanceException(
+                    String.format("Insufficient balance. Current balance: %s, Requested: %s",
+                            current.getBalance(), Money.ofMinor(amount)));
+        }
+        accountRepository.credit(toId, amount, now);
+
+        Account from = findAccount(fromId);
+        Account to = findAccount(toId);
+        Transaction out = buildTransaction(from, TransactionType.TRANSFER_OUT, amount, "Transfer to " + to.getAccountNumber(), idempotencyKey, now);
+        out.setCounterpartyAccountId(toId);
+        Transaction in = buildTransaction(to, TransactionType.TRANSFER_IN, amount, "Transfer from " + from.getAccountNumber(), null, now);
+        in.setCounterpartyAccountId(fromId);
+        return List.of(out, in);
+    }
+
+    /**
+     * Create the transaction record for a balance change that has already been applied.
+     * The journal inserts it together with the rest of its batch.
+     */
+    private Transaction buildTransaction(Account account, TransactionType type, long amount,
+                                         String description, String idempotencyKey, LocalDateTime now) {
+        // Publish the new balance to the account cache only once it is committed
+        accountCache.putAfterCommit(AccountService.mapToDTO(account), account.getVersion());
 
-        // Create transaction record
         Transaction transaction = new Transaction();
         transaction.setAccount(account);
-        transaction.setTransactionType("DEPOSIT");
-        transaction.setAmount(amount);
+        transaction.setTransactionType(type);
+        transaction.setAmount(Money.ofMinor(amount));
         transaction.setBalanceAfterTransaction(account.getBalance());
-        transaction.setDescription("Cash deposit");
-        transaction.setStatus("SUCCESS");
-        transaction.setTransactionDate(LocalDateTime.now());
+        transaction.setDescription(description);
+        transaction.setStatus(TransactionStatus.SUCCESS);
+        transaction.setIdempotencyKey(idempotencyKey);
+        transaction.setTransactionDate(now);
+        return transaction;
+    }
 
-        transactionRepository.save(transaction);
+    private Account findAccount(Long accountId) {
+        return accountRepository.findById(accountId)
+                .orElseThrow(() -> new AccountNotFoundException("Account not found: " + accountId));
+    }
 
-        return mapToDTO(transaction);
+    /**
+     * Run a balance operation, retrying it in a fresh transaction when it loses
+     * an optimistic version check or a row lock race to another request.
+     */
+    private <T> T retryOnConflict(Supplier<T> operation) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return operation.get();
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= MAX_CONFLICT_RETRIES) {
+                    throw e;
+                }
+            }
+        }
     }
 
     /**
-     * Get transaction history for an account.
+     * Get one page of transaction history for an account, newest first.
      *
-     * @param account the account to get history for
-     * @return List of TransactionDTOs
+     * @param accountId the account id
+     * @param cursor cursor returned with the previous page, or null for the first page
+     * @param pageSize maximum number of transactions on the page
+     * @return the page and the cursor for the next one
      */
-    public List<TransactionDTO> getTransactionHistory(Account account) {
-        List<Transaction> transactions = transactionRepository
-                .findByAccountOrderByTransactionDateDesc(account);
-        return transactions.stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public TransactionPage getTransactionPage(Long accountId, String cursor, int pageSize) {
+        return atmMetrics.time("history_page", () -> readTransactionPage(accountId, cursor, pageSize));
+    }
+
+    private TransactionPage readTransactionPage(Long accountId, String cursor, int pageSize) {
+        // Fetch one extra row to know whether another page follows
+        Limit limit = Limit.of(pageSize + 1);
+        List<TransactionDTO> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = transactionRepository.findHistory(accountId, limit);
+        } else {
+            HistoryCursor position = decodeCursor(cursor);
+            rows = transactionRepository.findHistoryBefore(accountId, position.transactionDate(), position.id(), limit);
+        }
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            TransactionDTO last = rows.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getTransactionDate(), last.getId());
+        }
+        return new TransactionPage(rows, nextCursor);
     }
 
     /**
-     * Get recent transactions (last 10).
+     * Get recent transactions (last 10 by default), for a mini-statement.
      *
      * @param account the account to get transactions for
-     * @return List of recent TransactionDTOs
+     * @return List of recent TransactionDTOs, newest first
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<TransactionDTO> getRecentTransactions(Account account) {
-        return getTransactionHistory(account).stream()
-                .limit(10)
-                .collect(Collectors.toList());
+        return getRecentTransactions(account.getId(), account.getAccountNumber());
+    }
+
+    /**
+     * Get recent transactions (last 10 by default), for a mini-statement.
+     * Served from memory once the account has been read; the first read loads them
+     * under the account lock, so no concurrent operation can be missed.
+     *
+     * @param accountId the account id
+     * @param accountNumber the account number
+     * @return List of recent TransactionDTOs, newest first
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<TransactionDTO> getRecentTransactions(Long accountId, String accountNumber) {
+        List<TransactionDTO> cached = recentTransactionsCache.get(accountId);
+        if (cached != null) {
+            return cached;
+        }
+        return accountLockManager.withLock(accountNumber, () -> {
+            List<TransactionDTO> recent = transactionRepository
+                    .findHistory(accountId, Limit.of(recentTransactionsCache.size()));
+            recentTransactionsCache.put(accountId, recent);
+            return recent;
+        });
+    }
+
+    private String encodeCursor(LocalDateTime transactionDate, Long id) {
+        String position = transactionDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private HistoryCursor decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.indexOf('|');
+            return new HistoryCursor(LocalDateTime.parse(position.substring(0, separator)),
+                    Long.valueOf(position.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid history cursor", e);
+        }
+    }
+
+    /**
+     * A validated ingest operation; position is its index within the chunk.
+     */
+    private record IngestItem(int position, Account account, TransactionType type, long amount, String key) {
+    }
+
+    /**
+     * An idempotency key together with the account it is scoped to.
+     */
+    private record IdempotencyRef(Long accountId, String key) {
+    }
+
+    /**
+     * Keyset position of the last transaction on a history page.
+     */
+    private record HistoryCursor(LocalDateTime transactionDate, Long id) {
     }
 
     /**
@@ -145,7 +766,7 @@ public class ATMService {
      * @param transaction the transaction entity
      * @return TransactionDTO
      */
-    private TransactionDTO mapToDTO(Transaction transaction) {
+    public static TransactionDTO mapToDTO(Transaction transaction) {
         return new TransactionDTO(
                 transaction.getId(),
                 transaction.getTransactionType(),
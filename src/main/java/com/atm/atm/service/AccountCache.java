@@ -0,0 +1,84 @@
+package com.atm.atm.service;
+
+import com.atm.atm.dto.AccountDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Bounded in-process cache of {@link AccountDTO}s keyed by account number.
+ * Entries expire after a fixed time to live and the least recently used entry is
+ * evicted once the cache is full. Every entry remembers the account version it was
+ * read at, so a slow reader can never overwrite a newer balance written by ATMService.
+ */
+@Component
+public class AccountCache {
+
+    private final BoundedLruCache<String, Entry> entries;
+
+    public AccountCache(@Value("${atm.account-cache.max-size:10000}") int maxSize,
+                        @Value("${atm.account-cache.ttl:60s}") Duration ttl) {
+        this.entries = new BoundedLruCache<>(maxSize, ttl);
+    }
+
+    /**
+     * Look up a cached account.
+     *
+     * @param accountNumber the account number
+     * @return the cached account, or null if absent or expired
+     */
+    public AccountDTO get(String accountNumber) {
+        Entry entry = entries.get(accountNumber);
+        return entry == null ? null : entry.account;
+    }
+
+    /**
+     * Cache an account read at a given version.
+     * Ignored if the cache already holds a newer version of the account.
+     *
+     * @param account the account
+     * @param version the account version the DTO was read at
+     */
+    public void put(AccountDTO account, long version) {
+        entries.putUnless(account.getAccountNumber(), new Entry(account, version), current -> current.version > version);
+    }
+
+    /**
+     * Cache an account once the current transaction commits, or immediately if there is none.
+     *
+     * @param account the account
+     * @param version the account version the DTO was read at
+     */
+    public void putAfterCommit(AccountDTO account, long version) {
+        TransactionCallbacks.runAfterCommit(() -> put(account, version));
+    }
+
+    /**
+     * Drop an account from the cache.
+     *
+     * @param accountNumber the account number
+     */
+    public void invalidate(String accountNumber) {
+        entries.remove(accountNumber);
+    }
+
+    /**
+     * Drop an account from the cache once the current transaction commits, or immediately if there is none.
+     *
+     * @param accountNumber the account number
+     */
+    public void invalidateAfterCommit(String accountNumber) {
+        TransactionCallbacks.runAfterCommit(() -> invalidate(accountNumber));
+    }
+
+    /**
+     * @return current hit, miss and eviction counters
+     */
+    public BoundedLruCache.Stats stats() {
+        return entries.stats();
+    }
+
+    private record Entry(AccountDTO account, long version) {
+    }
+}
@@ -0,0 +1,215 @@
+package com.atm.atm.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * In-JVM lock registry that serializes operations on the same account number.
+ * Account numbers are spread over a fixed number of stripes; each stripe keeps
+ * one lock per account currently in use and drops it as soon as nobody holds or
+ * waits for it, so the registry stays bounded by the number of in-flight requests
+ * and busy accounts never block operations on other accounts.
+ */
+@Component
+public class AccountLockManager {
+
+    private final Stripe[] stripes;
+    private final boolean fair;
+
+    public AccountLockManager(@Value("${atm.locks.stripes:64}") int stripeCount,
+                              @Value("${atm.locks.fair:false}") boolean fair) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("atm.locks.stripes must be greater than 0");
+        }
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.fair = fair;
+    }
+
+    /**
+     * Run an action while holding the lock for an account number.
+     *
+     * @param accountNumber the account to lock
+     * @param action the action to run
+     * @return the action's result
+     */
+    public <T> T withLock(String accountNumber, Supplier<T> action) {
+        Stripe stripe = stripeFor(accountNumber);
+        LockEntry entry = stripe.acquire(accountNumber, fair);
+        try {
+            return action.get();
+        } finally {
+            stripe.release(accountNumber, entry);
+        }
+    }
+
+    /**
+     * Run an action while holding the locks of two account numbers.
+     *
+     * @param first one account to lock
+     * @param second the other account to lock
+     * @param action the action to run
+     * @return the action's result
+     * @see #withLocks(Collection, Supplier)
+     */
+    public <T> T withLocks(String first, String second, Supplier<T> action) {
+        return withLocks(List.of(first, second), action);
+    }
+
+    /**
+     * Run an action while holding the locks of several account numbers.
+     * Locks are always taken in account number order, so two callers locking overlapping
+     * sets of accounts cannot deadlock.
+     *
+     * @param accountNumbers the accounts to lock; duplicates are ignored
+     * @param action the action to run
+     * @return the action's result
+     */
+    public <T> T withLocks(Collection<String> accountNumbers, Supplier<T> action) {
+        List<String> ordered = accountNumbers.stream().distinct().sorted().toList();
+        List<LockEntry> held = new ArrayList<>(ordered.size());
+        try {
+            for (String accountNumber : ordered) {
+                held.add(stripeFor(accountNumber).acquire(accountNumber, fair));
+            }
+            return action.get();
+        } finally {
+            for (int i = held.size() - 1; i >= 0; i--) {
+                String accountNumber = ordered.get(i);
+                stripeFor(accountNumber).release(accountNumber, held.get(i));
+            }
+        }
+    }
+
+    /**
+     * Snapshot of the wait time metrics of every stripe.
+     *
+     * @return one entry per stripe, in stripe order
+     */
+    public List<StripeStats> stats() {
+        List<StripeStats> result = new ArrayList<>(stripes.length);
+        for (int i = 0; i < stripes.length; i++) {
+            result.add(stats(i));
+        }
+        return result;
+    }
+
+    /**
+     * Snapshot of the wait time metrics of one stripe.
+     *
+     * @param stripe the stripe index, from 0 to {@link #stripeCount()} - 1
+     * @return the stripe's metrics
+     */
+    public StripeStats stats(int stripe) {
+        Stripe s = stripes[stripe];
+        return new StripeStats(stripe, s.acquisitions.sum(), s.contended.sum(),
+                s.waitNanos.sum(), s.maxWaitNanos.get(), s.activeLocks());
+    }
+
+    /**
+     * @return number of stripes account numbers are spread over
+     */
+    public int stripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * @return number of per-account locks currently held or waited on
+     */
+    public int activeLocks() {
+        int total = 0;
+        for (Stripe stripe : stripes) {
+            total += stripe.activeLocks();
+        }
+        return total;
+    }
+
+    private Stripe stripeFor(String accountNumber) {
+        int h = accountNumber.hashCode();
+        h ^= (h >>> 16);
+        return stripes[Math.floorMod(h, stripes.length)];
+    }
+
+    /**
+     * Wait time metrics of one stripe.
+     */
+    public record StripeStats(int stripe, long acquisitions, long contendedAcquisitions,
+                              long totalWaitNanos, long maxWaitNanos, int activeLocks) {
+    }
+
+    private static final class LockEntry {
+        final ReentrantLock lock;
+        int users;
+
+        LockEntry(boolean fair) {
+            this.lock = new ReentrantLock(fair);
+        }
+    }
+
+    private static final class Stripe {
+        // Guards the map and the users counters; held only for map bookkeeping, never while waiting
+        private final ReentrantLock registryLock = new ReentrantLock();
+        private final Map<String, LockEntry> locks = new HashMap<>();
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder contended = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        LockEntry acquire(String accountNumber, boolean fair) {
+            LockEntry entry;
+            registryLock.lock();
+            try {
+                entry = locks.computeIfAbsent(accountNumber, k -> new LockEntry(fair));
+                entry.users++;
+            } finally {
+                registryLock.unlock();
+            }
+
+            acquisitions.increment();
+            // tryLock barges, so fair locks always take the queued path
+            if (fair || !entry.lock.tryLock()) {
+                long start = System.nanoTime();
+                entry.lock.lock();
+                long waited = System.nanoTime() - start;
+                contended.increment();
+                waitNanos.add(waited);
+                maxWaitNanos.accumulateAndGet(waited, Math::max);
+            }
+            return entry;
+        }
+
+        void release(String accountNumber, LockEntry entry) {
+            entry.lock.unlock();
+            registryLock.lock();
+            try {
+                // Evict the lock object once it is idle
+                if (--entry.users == 0) {
+                    locks.remove(accountNumber);
+                }
+            } finally {
+                registryLock.unlock();
+            }
+        }
+
+        int activeLocks() {
+            registryLock.lock();
+            try {
+                return locks.size();
+            } finally {
+                registryLock.unlock();
+            }
+        }
+    }
+}
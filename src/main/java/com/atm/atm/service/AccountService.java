@@ -1,9 +1,14 @@
 package com.atm.atm.service;
 
 import com.atm.atm.dto.AccountDTO;
+import com.atm.atm.dto.VersionedAccount;
 import com.atm.atm.entity.Account;
+import com.atm.atm.entity.AccountStatus;
+import com.atm.atm.exception.AccountLockedException;
 import com.atm.atm.exception.AccountNotFoundException;
 import com.atm.atm.exception.InvalidPinException;
+import com.atm.atm.exception.LoginThrottledException;
+import com.atm.atm.metrics.AtmMetrics;
 import com.atm.atm.repository.AccountRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -19,7 +24,10 @@ import org.springframework.transaction.annotation.Transactional;
 public class AccountService {
 
     private final AccountRepository accountRepository;
-    private static final int MAX_FAILED_ATTEMPTS = 3;
+    private final AccountCache accountCache;
+    private final AtmMetrics atmMetrics;
+    private final PinHasher pinHasher;
+    private final LoginAttemptTracker loginAttemptTracker;
 
     /**
      * Authenticate an account with account number and PIN.
@@ -30,49 +38,97 @@ public class AccountService {
      * @return AccountDTO of authenticated account
      * @throws AccountNotFoundException if account doesn't exist
      * @throws InvalidPinException if PIN is incorrect
+     * @throws AccountLockedException if the account is locked
      */
+    @Transactional(noRollbackFor = InvalidPinException.class)
     public AccountDTO authenticate(String accountNumber, String pin) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new AccountNotFoundException("Account not found: " + accountNumber));
+        return authenticate(accountNumber, pin, null);
+    }
+
+    /**
+     * Authenticate an account with account number and PIN on behalf of a client.
+     * Failed attempts are counted in memory per account and per client address; an attempt
+     * over either limit is refused before the account is read. The account is locked in the
+     * database once it reaches the failed-attempt limit, which is its only write on failure.
+     *
+     * @param accountNumber the account number
+     * @param pin the PIN
+     * @param clientAddress the client's address, or null if unknown
+     * @return AccountDTO of authenticated account
+     * @throws AccountNotFoundException if account doesn't exist
+     * @throws InvalidPinException if PIN is incorrect
+     * @throws AccountLockedException if the account is locked
+     * @throws LoginThrottledException if the address has too many recent failed attempts
+     */
+    // Not rolled back on a failed attempt, so that the lock is kept
+    @Transactional(noRollbackFor = InvalidPinException.class)
+    public AccountDTO authenticate(String accountNumber, String pin, String clientAddress) {
+        return atmMetrics.time("authenticate", () -> verifyPin(accountNumber, pin, clientAddress));
+    }
+
+    private AccountDTO verifyPin(String accountNumber, String pin, String clientAddress) {
+        loginAttemptTracker.checkAllowed(accountNumber, clientAddress);
+
+        Account account = accountRepository.findByAccountNumber(accountNumber).orElse(null);
+        if (account == null) {
+            loginAttemptTracker.recordFailure(null, clientAddress);
+            throw new AccountNotFoundException("Account not found: " + accountNumber);
+        }
 
         // Check if account is locked
-        if ("LOCKED".equals(account.getStatus())) {
-            throw new InvalidPinException("Account is locked due to multiple failed login attempts");
+        if (account.getStatus() == AccountStatus.LOCKED) {
+            throw new AccountLockedException("Account is locked due to multiple failed login attempts");
         }
 
         // Validate PIN
-        if (!account.getPin().equals(pin)) {
-            account.setFailedLoginAttempts(account.getFailedLoginAttempts() + 1);
-
-            // Lock account after MAX_FAILED_ATTEMPTS
-            if (account.getFailedLoginAttempts() >= MAX_FAILED_ATTEMPTS) {
-                account.setStatus("LOCKED");
-                accountRepository.save(account);
-                throw new InvalidPinException("Account is now locked due to multiple failed login attempts");
+        if (!pinHasher.matches(pin, account.getPin())) {
+            int remaining = loginAttemptTracker.recordFailure(accountNumber, clientAddress);
+
+            // Lock account after the maximum number of failed attempts
+            if (remaining == 0) {
+                if (accountRepository.lock(account.getId(), loginAttemptTracker.maxAccountFailures()) > 0) {
+                    accountCache.invalidateAfterCommit(accountNumber);
+                }
+                throw new AccountLockedException("Account is now locked due to multiple failed login attempts");
             }
 
-            accountRepository.save(account);
-            throw new InvalidPinException("Invalid PIN. Attempts remaining: " + (MAX_FAILED_ATTEMPTS - account.getFailedLoginAttempts()));
+            throw new InvalidPinException("Invalid PIN. Attempts remaining: " + remaining);
         }
 
-        // Reset failed attempts on successful login
-        account.setFailedLoginAttempts(0);
-        accountRepository.save(account);
+        loginAttemptTracker.recordSuccess(accountNumber);
 
-        return mapToDTO(account);
+        // Targeted updates rather than a dirty entity, so a login never bumps the version
+        // and cannot fail a balance change in flight with an optimistic lock error.
+        AccountDTO result = mapToDTO(account);
+        // Upgrade a plaintext PIN or one hashed with another iteration count
+        if (pinHasher.needsRehash(account.getPin())) {
+            accountRepository.replacePin(account.getId(), account.getPin(), pinHasher.hash(pin));
+        }
+        // Reset failed attempts left over from before they were tracked in memory
+        if (account.getFailedLoginAttempts() != 0) {
+            accountRepository.clearFailedLoginAttempts(account.getId());
+        }
+        return result;
     }
 
     /**
      * Get account details by account number.
+     * Served from the account cache when possible; a miss is selected straight into the DTO.
      *
      * @param accountNumber the account number
      * @return AccountDTO
      * @throws AccountNotFoundException if account doesn't exist
      */
+    @Transactional(readOnly = true)
     public AccountDTO getAccountByNumber(String accountNumber) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
+        AccountDTO cached = accountCache.get(accountNumber);
+        if (cached != null) {
+            return cached;
+        }
+        VersionedAccount row = accountRepository.findDtoByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountNotFoundException("Account not found: " + accountNumber));
-        return mapToDTO(account);
+        accountCache.put(row.getAccount(), row.getVersion());
+        return row.getAccount();
     }
 
     /**
@@ -93,7 +149,7 @@ public class AccountService {
      * @param account the account entity
      * @return AccountDTO
      */
-    private AccountDTO mapToDTO(Account account) {
+    public static AccountDTO mapToDTO(Account account) {
         return new AccountDTO(
                 account.getId(),
                 account.getAccountNumber(),
@@ -0,0 +1,84 @@
+package com.atm.atm.service;
+
+import com.atm.atm.dto.AccountStatistics;
+import com.atm.atm.entity.DailyAggregate;
+import com.atm.atm.entity.Transaction;
+import com.atm.atm.entity.TransactionType;
+import com.atm.atm.money.Money;
+import com.atm.atm.repository.DailyAggregateRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service class for per-account activity statistics.
+ * Keeps per-day, per-type running totals in the same database transaction that writes the
+ * transaction records, so reading them costs one short primary-key range read.
+ */
+@Service
+@RequiredArgsConstructor
+public class AccountStatisticsService {
+
+    private final DailyAggregateRepository dailyAggregateRepository;
+
+    /**
+     * Add freshly inserted transaction records to the running totals.
+     * Must run inside the transaction that inserted them, after they were flushed.
+     *
+     * @param transactions the saved records
+     */
+    public void record(List<Transaction> transactions) {
+        // One update per account, day and type, however many records share it
+        Map<DailyAggregate.Key, long[]> totals = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            DailyAggregate.Key key = new DailyAggregate.Key(transaction.getAccount().getId(),
+                    transaction.getTransactionDate().toLocalDate(), transaction.getTransactionType().code());
+            long[] total = totals.computeIfAbsent(key, k -> new long[2]);
+            total[0] += transaction.getAmount().minorUnits();
+            total[1]++;
+        }
+        totals.forEach((key, total) -> dailyAggregateRepository.add(key.getAccountId(), key.getAggregateDate(),
+                key.getTransactionType(), total[0], total[1]));
+    }
+
+    /**
+     * Get today's and this month's totals of an account.
+     *
+     * @param accountId the account id
+     * @return the statistics
+     */
+    @Transactional(readOnly = true)
+    public AccountStatistics statistics(Long accountId) {
+        LocalDate today = LocalDate.now();
+        long withdrawnToday = 0, depositedToday = 0, transactionsToday = 0;
+        long withdrawnThisMonth = 0, depositedThisMonth = 0, transactionsThisMonth = 0;
+
+        for (DailyAggregate aggregate : dailyAggregateRepository
+                .findByAccountIdAndAggregateDateBetween(accountId, today.withDayOfMonth(1), today)) {
+            boolean isToday = aggregate.getAggregateDate().equals(today);
+            long amount = aggregate.getTotalAmount().minorUnits();
+            switch (TransactionType.fromCode(aggregate.getTransactionType())) {
+                case WITHDRAWAL -> {
+                    withdrawnThisMonth += amount;
+                    withdrawnToday += isToday ? amount : 0;
+                }
+                case DEPOSIT -> {
+                    depositedThisMonth += amount;
+                    depositedToday += isToday ? amount : 0;
+                }
+                default -> {
+                }
+            }
+            transactionsThisMonth += aggregate.getTransactionCount();
+            transactionsToday += isToday ? aggregate.getTransactionCount() : 0;
+        }
+
+        return new AccountStatistics(Money.ofMinor(withdrawnToday), Money.ofMinor(depositedToday), transactionsToday,
+                Money.ofMinor(withdrawnThisMonth), Money.ofMinor(depositedThisMonth), transactionsThisMonth);
+    }
+}
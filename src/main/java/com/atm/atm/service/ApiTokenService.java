@@ -0,0 +1,98 @@
+package com.atm.atm.service;
+
+import com.atm.atm.exception.InvalidTokenException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Issues and resolves bearer tokens for the JSON API.
+ * A token is a random opaque string mapped to an account number in memory;
+ * it expires after a fixed time to live and can be revoked early on logout.
+ */
+@Component
+public class ApiTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+    // Sweep expired tokens once every this many issued tokens
+    private static final int SWEEP_INTERVAL = 1024;
+
+    private final long ttlNanos;
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Grant> grants = new ConcurrentHashMap<>();
+    private final AtomicInteger issuedSinceSweep = new AtomicInteger();
+
+    public ApiTokenService(@Value("${atm.api.token-ttl:30m}") Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Issue a new token for an authenticated account.
+     *
+     * @param accountNumber the account number
+     * @return the token
+     */
+    public String issue(String accountNumber) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        grants.put(token, new Grant(accountNumber, System.nanoTime() + ttlNanos));
+
+        if (issuedSinceSweep.incrementAndGet() >= SWEEP_INTERVAL) {
+            issuedSinceSweep.set(0);
+            long now = System.nanoTime();
+            grants.values().removeIf(grant -> grant.isExpired(now));
+        }
+        return token;
+    }
+
+    /**
+     * Resolve a token to the account number it was issued for.
+     *
+     * @param token the token
+     * @return the account number
+     * @throws InvalidTokenException if the token is unknown or expired
+     */
+    public String resolve(String token) {
+        Grant grant = token == null ? null : grants.get(token);
+        if (grant == null) {
+            throw new InvalidTokenException("Missing or invalid access token");
+        }
+        if (grant.isExpired(System.nanoTime())) {
+            grants.remove(token);
+            throw new InvalidTokenException("Access token has expired");
+        }
+        return grant.accountNumber();
+    }
+
+    /**
+     * Revoke a token. Unknown tokens are ignored.
+     *
+     * @param token the token
+     */
+    public void revoke(String token) {
+        if (token != null) {
+            grants.remove(token);
+        }
+    }
+
+    /**
+     * @return token lifetime in seconds
+     */
+    public long ttlSeconds() {
+        return Duration.ofNanos(ttlNanos).toSeconds();
+    }
+
+    private record Grant(String accountNumber, long expiresAt) {
+
+        boolean isExpired(long now) {
+            return now - expiresAt > 0;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.atm.atm.service;
+
+import com.atm.atm.dto.AccountDTO;
+import com.atm.atm.entity.BalanceSnapshot;
+import com.atm.atm.entity.Transaction;
+import com.atm.atm.money.Money;
+import com.atm.atm.repository.AccountRepository;
+import com.atm.atm.repository.BalanceSnapshotRepository;
+import com.atm.atm.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Service class for end-of-day balance snapshots.
+ * Snapshots are kept up to date in the same database transaction that writes the
+ * transaction records, so a point-in-time balance costs one snapshot lookup and at most
+ * a scan of one day's transactions instead of a replay of the whole history.
+ */
+@Service
+@RequiredArgsConstructor
+public class BalanceSnapshotService {
+
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final AccountLockManager accountLockManager;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Update the snapshots for freshly inserted transaction records.
+     * Must run inside the transaction that inserted them, after they were flushed.
+     *
+     * @param transactions the saved records, in the order they were applied
+     */
+    public void record(List<Transaction> transactions) {
+        // Only the last record of each account and day decides the snapshot
+        Map<BalanceSnapshot.Key, Transaction> lastOfDay = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            BalanceSnapshot.Key key = new BalanceSnapshot.Key(
+                    transaction.getAccount().getId(), transaction.getTransactionDate().toLocalDate());
+            lastOfDay.merge(key, transaction, (current, next) -> next.getId() > current.getId() ? next : current);
+        }
+        lastOfDay.forEach((key, transaction) -> balanceSnapshotRepository.upsert(key.getAccountId(),
+                key.getSnapshotDate(), transaction.getBalanceAfterTransaction().minorUnits(), transaction.getId()));
+    }
+
+    /**
+     * Get the balance of an account at a point in time.
+     *
+     * @param account the account
+     * @param at the point in time
+     * @return the balance after the last transaction at or before that time
+     */
+    @Transactional(readOnly = true)
+    public Money balanceAt(AccountDTO account, LocalDateTime at) {
+        LocalDate day = at.toLocalDate();
+
+        // Transactions earlier on the same day are newer than any snapshot
+        Optional<Transaction> lastToday = transactionRepository
+                .findFirstByAccountIdAndTransactionDateBetweenOrderByTransactionDateDescIdDesc(
+                        account.getId(), day.atStartOfDay(), at);
+        if (lastToday.isPresent()) {
+            return lastToday.get().getBalanceAfterTransaction();
+        }
+
+        Optional<BalanceSnapshot> snapshot = balanceSnapshotRepository
+                .findFirstByAccountIdAndSnapshotDateLessThanOrderBySnapshotDateDesc(account.getId(), day);
+        if (snapshot.isPresent()) {
+            return snapshot.get().getBalance();
+        }
+
+        // No activity yet at that time: the opening balance, as seen by the first later transaction
+        return transactionRepository.findFirstByAccountIdAndTransactionDateAfterOrderByTransactionDateAscIdAsc(account.getId(), at)
+                .map(BalanceSnapshotService::balanceBefore)
+                .orElse(account.getBalance());
+    }
+
+    /**
+     * Recreate every account's snapshots from the transaction log.
+     * Accounts are rebuilt one at a time, each under its account lock and in its own transaction.
+     *
+     * @return the number of accounts rebuilt
+     */
+    public int rebuild() {
+        List<String> accountNumbers = accountRepository.findAllAccountNumbers();
+        for (String accountNumber : accountNumbers) {
+            rebuild(accountNumber);
+        }
+        return accountNumbers.size();
+    }
+
+    /**
+     * Recreate one account's snapshots from the transaction log.
+     *
+     * @param accountNumber the account number
+     */
+    public void rebuild(String accountNumber) {
+        accountLockManager.withLock(accountNumber, () -> transactionTemplate.execute(status -> {
+            accountRepository.findByAccountNumber(accountNumber).ifPresent(account -> {
+                balanceSnapshotRepository.deleteAllByAccountId(account.getId());
+                balanceSnapshotRepository.rebuildFromTransactions(account.getId());
+            });
+            return null;
+        }));
+    }
+
+    @Scheduled(cron = "${atm.snapshots.rebuild-cron:0 30 2 * * *}")
+    void scheduledRebuild() {
+        rebuild();
+    }
+
+    private static Money balanceBefore(Transaction transaction) {
+        Money balanceAfter = transaction.getBalanceAfterTransaction();
+        Money amount = transaction.getAmount();
+        return transaction.getTransactionType().isDebit() ? balanceAfter.plus(amount) : balanceAfter.minus(amount);
+    }
+}
@@ -0,0 +1,159 @@
+package com.atm.atm.service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Bounded, lock-guarded LRU map with an optional time to live, counting hits, misses
+ * and evictions. The least recently used entry is evicted once the map is full; an
+ * entry older than its time to live is dropped when it is next looked up.
+ * Shared by the in-process caches, which add their own keys and values on top.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class BoundedLruCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxSize maximum number of entries
+     */
+    public BoundedLruCache(int maxSize) {
+        this(maxSize, null);
+    }
+
+    /**
+     * @param maxSize maximum number of entries
+     * @param ttl time to live of an entry, or null for none
+     */
+    public BoundedLruCache(int maxSize, Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl == null ? Long.MAX_VALUE : ttl.toNanos();
+    }
+
+    /**
+     * Look up an entry, counting a hit or a miss.
+     *
+     * @param key the key
+     * @return the value, or null if absent or expired
+     */
+    public V get(K key) {
+        V value = lookup(key);
+        (value == null ? misses : hits).increment();
+        return value;
+    }
+
+    /**
+     * Look up an entry without counting a hit or a miss.
+     *
+     * @param key the key
+     * @return the value, or null if absent or expired
+     */
+    public V peek(K key) {
+        return lookup(key);
+    }
+
+    /**
+     * Store an entry, evicting the least recently used ones if the map is full.
+     *
+     * @param key the key
+     * @param value the value
+     */
+    public void put(K key, V value) {
+        putUnless(key, value, current -> false);
+    }
+
+    /**
+     * Store an entry unless the current one should be kept.
+     *
+     * @param key the key
+     * @param value the value
+     * @param keepCurrent tested against the value currently stored, if any
+     */
+    public void putUnless(K key, V value, Predicate<V> keepCurrent) {
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            Entry<V> current = entries.get(key);
+            if (current != null && keepCurrent.test(current.value)) {
+                return;
+            }
+            entries.put(key, new Entry<>(value, now));
+            Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+            while (entries.size() > maxSize && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drop an entry.
+     *
+     * @param key the key
+     */
+    public void remove(K key) {
+        lock.lock();
+        try {
+            entries.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return current hit, miss and eviction counters
+     */
+    public Stats stats() {
+        lock.lock();
+        try {
+            return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private V lookup(K key) {
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (now - entry.storedAt > ttlNanos) {
+                entries.remove(key);
+                evictions.increment();
+                return null;
+            }
+            return entry.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cache counters.
+     */
+    public record Stats(long hits, long misses, long evictions, int size) {
+    }
+
+    private record Entry<V>(V value, long storedAt) {
+    }
+}
@@ -0,0 +1,180 @@
+package com.atm.atm.service;
+
+import com.atm.atm.cash.DispensePlanner;
+import com.atm.atm.entity.Cassette;
+import com.atm.atm.exception.CashUnavailableException;
+import com.atm.atm.money.Money;
+import com.atm.atm.repository.CassetteRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Note inventory of the cash terminals.
+ * Each terminal's note counts are loaded from its cassettes on first use and kept in memory,
+ * where withdrawals reserve notes before the account is touched. A reservation is written to
+ * the cassettes in the same database transaction as the debit, and handed back if that
+ * transaction rolls back or the withdrawal fails.
+ */
+@Component
+public class CashInventory {
+
+    private final CassetteRepository cassetteRepository;
+    private final String defaultTerminalId;
+    private final long precomputedMax;
+    private final ConcurrentHashMap<String, Terminal> terminals = new ConcurrentHashMap<>();
+
+    public CashInventory(CassetteRepository cassetteRepository,
+                         @Value("${atm.cash.default-terminal-id:ATM-001}") String defaultTerminalId,
+                         @Value("${atm.limits.max-withdrawal:50000}") BigDecimal precomputedMax) {
+        this.cassetteRepository = cassetteRepository;
+        this.defaultTerminalId = defaultTerminalId;
+        this.precomputedMax = Money.of(precomputedMax).minorUnits();
+    }
+
+    /**
+     * Set aside the notes for a withdrawal.
+     *
+     * @param terminalId the terminal paying out, null for the default terminal
+     * @param amount the amount, in minor units
+     * @return the reservation, to be passed to {@link #dispense} or {@link #release}
+     * @throws CashUnavailableException if the terminal cannot make the amount from its notes
+     */
+    public Reservation reserve(String terminalId, long amount) {
+        Terminal terminal = terminal(terminalId != null ? terminalId : defaultTerminalId);
+        int[] notes = new int[terminal.planner.size()];
+        synchronized (terminal) {
+            if (!terminal.planner.plan(amount, terminal.counts, notes)) {
+                throw new CashUnavailableException(String.format(
+                        "Terminal %s cannot dispense %s with the notes it holds", terminal.id, Money.ofMinor(amount)));
+            }
+            for (int i = 0; i < notes.length; i++) {
+                terminal.counts[i] -= notes[i];
+            }
+        }
+        return new Reservation(terminal, notes);
+    }
+
+    /**
+     * Take the reserved notes out of the cassettes.
+     * Must run inside the transaction that debits the account; if it rolls back, the notes are released.
+     *
+     * @param reservation the reservation
+     */
+    public void dispense(Reservation reservation) {
+        // An unknown outcome keeps the notes reserved, so they are never promised twice
+        TransactionCallbacks.runAfterRollback(() -> release(reservation));
+        Terminal terminal = reservation.terminal;
+        for (int i = 0; i < reservation.notes.length; i++) {
+            if (reservation.notes[i] > 0) {
+                cassetteRepository.dispense(terminal.cassetteIds[i], reservation.notes[i]);
+            }
+        }
+    }
+
+    /**
+     * Give reserved notes back, for a withdrawal that did not go through. Releasing twice has no effect.
+     *
+     * @param reservation the reservation
+     */
+    public void release(Reservation reservation) {
+        if (!reservation.released.compareAndSet(false, true)) {
+            return;
+        }
+        Terminal terminal = reservation.terminal;
+        synchronized (terminal) {
+            for (int i = 0; i < reservation.notes.length; i++) {
+                terminal.counts[i] += reservation.notes[i];
+            }
+        }
+    }
+
+    /**
+     * @param terminalId the terminal id, null for the default terminal
+     * @return the notes the terminal has left per denomination, largest first
+     */
+    public NoteCount[] levels(String terminalId) {
+        Terminal terminal = terminal(terminalId != null ? terminalId : defaultTerminalId);
+        NoteCount[] levels = new NoteCount[terminal.counts.length];
+        synchronized (terminal) {
+            for (int i = 0; i < levels.length; i++) {
+                levels[i] = new NoteCount(Money.ofMinor(terminal.planner.denomination(i)), terminal.counts[i]);
+            }
+        }
+        return levels;
+    }
+
+    private Terminal terminal(String terminalId) {
+        Terminal terminal = terminals.get(terminalId);
+        if (terminal != null) {
+            return terminal;
+        }
+        // Loaded outside the map: computeIfAbsent would hold a bin lock over the query and
+        // pin a virtual thread's carrier. A racing load is discarded in favour of the first.
+        Terminal loaded = load(terminalId);
+        Terminal existing = terminals.putIfAbsent(terminalId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private Terminal load(String terminalId) {
+        List<Cassette> cassettes = cassetteRepository.findByTerminalId(terminalId).stream()
+                .sorted(Comparator.comparing(Cassette::getDenomination).reversed())
+                .toList();
+        if (cassettes.isEmpty()) {
+            throw new CashUnavailableException("Terminal " + terminalId + " has no cassettes");
+        }
+
+        long[] denominations = new long[cassettes.size()];
+        Long[] cassetteIds = new Long[cassettes.size()];
+        int[] counts = new int[cassettes.size()];
+        for (int i = 0; i < cassettes.size(); i++) {
+            Cassette cassette = cassettes.get(i);
+            denominations[i] = cassette.getDenomination().minorUnits();
+            cassetteIds[i] = cassette.getId();
+            counts[i] = cassette.getNoteCount();
+        }
+        return new Terminal(terminalId, new DispensePlanner(denominations, precomputedMax), cassetteIds, counts);
+    }
+
+    /**
+     * Notes set aside for one withdrawal.
+     */
+    public static final class Reservation {
+        private final Terminal terminal;
+        private final int[] notes;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Reservation(Terminal terminal, int[] notes) {
+            this.terminal = terminal;
+            this.notes = notes;
+        }
+    }
+
+    /**
+     * Notes left of one denomination.
+     */
+    public record NoteCount(Money denomination, int notes) {
+    }
+
+    /**
+     * In-memory note counts of a terminal, guarded by the terminal's monitor.
+     */
+    private static final class Terminal {
+        private final String id;
+        private final DispensePlanner planner;
+        private final Long[] cassetteIds;
+        private final int[] counts;
+
+        private Terminal(String id, DispensePlanner planner, Long[] cassetteIds, int[] counts) {
+            this.id = id;
+            this.planner = planner;
+            this.cassetteIds = cassetteIds;
+            this.counts = counts;
+        }
+    }
+}
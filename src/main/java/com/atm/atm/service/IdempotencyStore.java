@@ -0,0 +1,79 @@
+package com.atm.atm.service;
+
+import com.atm.atm.dto.TransactionDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Bounded in-process store of the results of recent idempotent operations,
+ * keyed by account id and client-supplied idempotency key. A transfer's result is
+ * stored with its destination account, so a key reused for another destination is
+ * told apart from a retry.
+ * Entries expire after a fixed time to live and the least recently used entry is
+ * evicted once the store is full. The transactions table keeps every key
+ * permanently, so an evicted key is still recognised, at the cost of one query.
+ */
+@Component
+public class IdempotencyStore {
+
+    private final BoundedLruCache<Key, Recorded> entries;
+
+    public IdempotencyStore(@Value("${atm.idempotency.max-size:100000}") int maxSize,
+                            @Value("${atm.idempotency.ttl:24h}") Duration ttl) {
+        this.entries = new BoundedLruCache<>(maxSize, ttl);
+    }
+
+    /**
+     * Look up the stored result of an operation.
+     *
+     * @param accountId the account id
+     * @param idempotencyKey the client-supplied key
+     * @return the stored result, or null if absent or expired
+     */
+    public Recorded get(Long accountId, String idempotencyKey) {
+        return entries.get(new Key(accountId, idempotencyKey));
+    }
+
+    /**
+     * Store the result of a completed cash operation.
+     *
+     * @param accountId the account id
+     * @param idempotencyKey the client-supplied key
+     * @param result the operation's result
+     */
+    public void put(Long accountId, String idempotencyKey, TransactionDTO result) {
+        put(accountId, idempotencyKey, new Recorded(result, null));
+    }
+
+    /**
+     * Store the result of a completed operation.
+     *
+     * @param accountId the account id
+     * @param idempotencyKey the client-supplied key
+     * @param recorded the operation's result and counterparty
+     */
+    public void put(Long accountId, String idempotencyKey, Recorded recorded) {
+        entries.put(new Key(accountId, idempotencyKey), recorded);
+    }
+
+    /**
+     * @return current hit, miss and eviction counters
+     */
+    public BoundedLruCache.Stats stats() {
+        return entries.stats();
+    }
+
+    /**
+     * The result of an operation and the other account it involved.
+     *
+     * @param result the first transaction record of the operation
+     * @param counterpartyAccountId the destination of a transfer, null for cash operations
+     */
+    public record Recorded(TransactionDTO result, Long counterpartyAccountId) {
+    }
+
+    private record Key(Long accountId, String idempotencyKey) {
+    }
+}
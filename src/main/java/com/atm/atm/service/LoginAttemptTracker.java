@@ -0,0 +1,150 @@
+package com.atm.atm.service;
+
+import com.atm.atm.exception.AccountLockedException;
+import com.atm.atm.exception.LoginThrottledException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory sliding-window count of failed logins, per account and per client address.
+ * Attempts on an account or from an address that has reached its limit within the window
+ * are refused before the account is read or a PIN is hashed, so a credential-stuffing burst
+ * costs neither database round trips nor KDF work. Failures are not written to the database;
+ * the caller persists only the transition of an account to LOCKED.
+ *
+ * Counts are kept per instance and start over on restart. Each key holds at most its limit
+ * of timestamps, and keys without recent failures are swept periodically.
+ */
+@Component
+public class LoginAttemptTracker {
+
+    private static final int SWEEP_INTERVAL = 1024;
+
+    private final int maxAccountFailures;
+    private final int maxAddressFailures;
+    private final long windowNanos;
+    private final Map<String, Window> accounts = new ConcurrentHashMap<>();
+    private final Map<String, Window> addresses = new ConcurrentHashMap<>();
+    private final AtomicInteger recordedSinceSweep = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    public LoginAttemptTracker(@Value("${atm.login.max-failed-attempts:3}") int maxAccountFailures,
+                               @Value("${atm.login.max-failures-per-address:20}") int maxAddressFailures,
+                               @Value("${atm.login.failure-window:15m}") Duration window) {
+        if (maxAccountFailures <= 0 || maxAddressFailures <= 0) {
+            throw new IllegalArgumentException("atm.login failure limits must be greater than 0");
+        }
+        this.maxAccountFailures = maxAccountFailures;
+        this.maxAddressFailures = maxAddressFailures;
+        this.windowNanos = window.toNanos();
+    }
+
+    /**
+     * Refuse an attempt that is over a limit.
+     *
+     * @param accountNumber the account number
+     * @param clientAddress the client address, or null if unknown
+     * @throws LoginThrottledException if the address has too many recent failures
+     * @throws AccountLockedException if the account has too many recent failures
+     */
+    public void checkAllowed(String accountNumber, String clientAddress) {
+        long now = System.nanoTime();
+        if (clientAddress != null && failures(addresses, clientAddress, now) >= maxAddressFailures) {
+            rejected.increment();
+            throw new LoginThrottledException("Too many failed login attempts. Please try again later");
+        }
+        if (failures(accounts, accountNumber, now) >= maxAccountFailures) {
+            rejected.increment();
+            throw new AccountLockedException("Account is locked due to multiple failed login attempts");
+        }
+    }
+
+    /**
+     * Record a failed attempt.
+     *
+     * @param accountNumber the account number, or null if no such account exists
+     * @param clientAddress the client address, or null if unknown
+     * @return attempts left before the account locks; 0 once the limit is reached
+     */
+    public int recordFailure(String accountNumber, String clientAddress) {
+        long now = System.nanoTime();
+        if (recordedSinceSweep.incrementAndGet() >= SWEEP_INTERVAL) {
+            recordedSinceSweep.set(0);
+            accounts.values().removeIf(window -> window.count(now, windowNanos) == 0);
+            addresses.values().removeIf(window -> window.count(now, windowNanos) == 0);
+        }
+        if (clientAddress != null) {
+            addresses.computeIfAbsent(clientAddress, key -> new Window(maxAddressFailures)).record(now, windowNanos);
+        }
+        if (accountNumber == null) {
+            return maxAccountFailures;
+        }
+        int failures = accounts.computeIfAbsent(accountNumber, key -> new Window(maxAccountFailures)).record(now, windowNanos);
+        return Math.max(0, maxAccountFailures - failures);
+    }
+
+    /**
+     * Forget an account's failures after a successful login.
+     *
+     * @param accountNumber the account number
+     */
+    public void recordSuccess(String accountNumber) {
+        accounts.remove(accountNumber);
+    }
+
+    /**
+     * @return failed attempts within the window after which an account is locked
+     */
+    public int maxAccountFailures() {
+        return maxAccountFailures;
+    }
+
+    /**
+     * @return number of attempts refused without checking the PIN
+     */
+    public long rejectedAttempts() {
+        return rejected.sum();
+    }
+
+    private int failures(Map<String, Window> windows, String key, long now) {
+        Window window = windows.get(key);
+        return window == null ? 0 : window.count(now, windowNanos);
+    }
+
+    /**
+     * Times of the most recent failures of one key, up to its limit; older ones cannot
+     * change whether the limit is reached.
+     */
+    private static final class Window {
+        private final long[] failures;
+        private int next;
+        private int size;
+
+        Window(int limit) {
+            this.failures = new long[limit];
+        }
+
+        synchronized int record(long now, long windowNanos) {
+            failures[next] = now;
+            next = (next + 1) % failures.length;
+            size = Math.min(size + 1, failures.length);
+            return count(now, windowNanos);
+        }
+
+        synchronized int count(long now, long windowNanos) {
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (now - failures[i] < windowNanos) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.atm.atm.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Hashes and verifies PINs with PBKDF2-HMAC-SHA256 and a random salt per PIN.
+ * The iteration count is tunable and stored in every hash, so raising it takes effect for
+ * new hashes while existing ones keep verifying; {@link #needsRehash} reports hashes made
+ * with another count so they can be upgraded on the next successful login.
+ *
+ * Format: {@code pbkdf2-sha256$iterations$base64(salt)$base64(hash)}. A stored value in any
+ * other format is treated as a legacy plaintext PIN, still accepted and always rehashed.
+ */
+@Component
+public class PinHasher {
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256$";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final Base64.Encoder ENCODER = Base64.getEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getDecoder();
+
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+
+    public PinHasher(@Value("${atm.pin.kdf-iterations:310000}") int iterations) {
+        if (iterations <= 0) {
+            throw new IllegalArgumentException("atm.pin.kdf-iterations must be greater than 0");
+        }
+        this.iterations = iterations;
+    }
+
+    /**
+     * Hash a PIN for storage.
+     *
+     * @param pin the PIN
+     * @return the encoded hash
+     */
+    public String hash(String pin) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        return PREFIX + iterations + '$' + ENCODER.encodeToString(salt) + '$'
+                + ENCODER.encodeToString(derive(pin, salt, iterations));
+    }
+
+    /**
+     * Check a PIN against a stored value in constant time.
+     *
+     * @param pin the PIN entered
+     * @param stored the stored hash, or a legacy plaintext PIN
+     * @return true if they match
+     */
+    public boolean matches(String pin, String stored) {
+        if (!stored.startsWith(PREFIX)) {
+            return MessageDigest.isEqual(pin.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = stored.substring(PREFIX.length()).split("\\$");
+        if (parts.length != 3) {
+            return false;
+        }
+        try {
+            byte[] expected = DECODER.decode(parts[2]);
+            return MessageDigest.isEqual(derive(pin, DECODER.decode(parts[1]), Integer.parseInt(parts[0])), expected);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param stored the stored hash, or a legacy plaintext PIN
+     * @return true if it is not a hash with the configured iteration count
+     */
+    public boolean needsRehash(String stored) {
+        return !stored.startsWith(PREFIX + iterations + '$');
+    }
+
+    private static byte[] derive(String pin, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(pin.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2-HMAC-SHA256 is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.atm.atm.service;
+
+import com.atm.atm.dto.TransactionDTO;
+import com.atm.atm.entity.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounded in-process cache of every account's latest transactions, for mini-statements.
+ * Each cached account holds a fixed-size ring buffer of {@link TransactionDTO}s that is
+ * filled from the database on first access and then appended to as new transaction records
+ * commit. The least recently used account is evicted once the cache holds the maximum
+ * number of accounts, which bounds its memory to max-accounts times size entries.
+ *
+ * Records are only ever appended to accounts already in the cache; an account that is not
+ * cached is read from the database in full the next time it is asked for. Callers must warm
+ * an account while holding its account lock, so that no record can commit between the
+ * database read and the buffer being installed.
+ */
+@Component
+public class RecentTransactionsCache {
+
+    private final int size;
+    private final BoundedLruCache<Long, Ring> entries;
+
+    public RecentTransactionsCache(@Value("${atm.recent-transactions.size:10}") int size,
+                                   @Value("${atm.recent-transactions.max-accounts:10000}") int maxAccounts) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("atm.recent-transactions.size must be greater than 0");
+        }
+        this.size = size;
+        this.entries = new BoundedLruCache<>(maxAccounts);
+    }
+
+    /**
+     * @return the number of transactions kept per account
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Look up an account's latest transactions.
+     *
+     * @param accountId the account id
+     * @return up to {@link #size()} transactions, newest first, or null if the account is not cached
+     */
+    public List<TransactionDTO> get(Long accountId) {
+        Ring ring = entries.get(accountId);
+        return ring == null ? null : ring.newestFirst();
+    }
+
+    /**
+     * Cache an account's latest transactions as read from the database.
+     * Must be called while holding the account lock.
+     *
+     * @param accountId the account id
+     * @param newestFirst the latest transactions, newest first; only the first {@link #size()} are kept
+     */
+    public void put(Long accountId, List<TransactionDTO> newestFirst) {
+        Ring ring = new Ring(size);
+        for (int i = Math.min(size, newestFirst.size()) - 1; i >= 0; i--) {
+            ring.append(newestFirst.get(i));
+        }
+        entries.put(accountId, ring);
+    }
+
+    /**
+     * Append freshly inserted transaction records to their accounts once the current
+     * transaction commits, or immediately if there is none.
+     * Must run after the records were flushed, so they carry their ids.
+     *
+     * @param transactions the saved records, in the order they were applied
+     */
+    public void appendAfterCommit(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        // Map now: the entities must not be touched once their session is closed
+        List<Long> accountIds = new ArrayList<>(transactions.size());
+        List<TransactionDTO> records = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            accountIds.add(transaction.getAccount().getId());
+            records.add(ATMService.mapToDTO(transaction));
+        }
+
+        TransactionCallbacks.runAfterCommit(() -> append(accountIds, records));
+    }
+
+    /**
+     * @return current hit, miss and eviction counters
+     */
+    public BoundedLruCache.Stats stats() {
+        return entries.stats();
+    }
+
+    private void append(List<Long> accountIds, List<TransactionDTO> records) {
+        for (int i = 0; i < records.size(); i++) {
+            Ring ring = entries.peek(accountIds.get(i));
+            if (ring != null) {
+                ring.append(records.get(i));
+            }
+        }
+    }
+
+    /**
+     * Fixed-size ring of transactions, overwriting the oldest once full.
+     */
+    private static final class Ring {
+        private final TransactionDTO[] slots;
+        private int next;
+        private int count;
+
+        Ring(int size) {
+            this.slots = new TransactionDTO[size];
+        }
+
+        synchronized void append(TransactionDTO transaction) {
+            slots[next] = transaction;
+            next = (next + 1) % slots.length;
+            count = Math.min(count + 1, slots.length);
+        }
+
+        synchronized List<TransactionDTO> newestFirst() {
+            List<TransactionDTO> result = new ArrayList<>(count);
+            for (int i = 1; i <= count; i++) {
+                result.add(slots[(next - i + slots.length) % slots.length]);
+            }
+            return result;
+        }
+    }
+}
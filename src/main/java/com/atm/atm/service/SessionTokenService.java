@@ -0,0 +1,136 @@
+package com.atm.atm.service;
+
+import com.atm.atm.exception.InvalidTokenException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Issues and verifies stateless session tokens for the HTML interface.
+ * A token carries the account number and its expiry time, signed with HMAC-SHA256, so it
+ * is verified without any lookup and any instance sharing the secret accepts it. Nothing is
+ * kept on the server; a token stays valid until it expires.
+ *
+ * Format: {@code base64url(accountNumber|expiresAtEpochSecond) "." base64url(signature)}.
+ */
+@Component
+public class SessionTokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    // Mac instances are not thread-safe
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    public SessionTokenService(@Value("${atm.web.token-secret:}") String secret,
+                               @Value("${atm.web.session-ttl:15m}") Duration ttl) {
+        byte[] secretBytes;
+        if (secret.isEmpty()) {
+            // Only this instance will accept its tokens
+            secretBytes = new byte[MIN_SECRET_BYTES];
+            new SecureRandom().nextBytes(secretBytes);
+        } else {
+            secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+            if (secretBytes.length < MIN_SECRET_BYTES) {
+                throw new IllegalArgumentException("atm.web.token-secret must be at least " + MIN_SECRET_BYTES + " bytes");
+            }
+        }
+        this.key = new SecretKeySpec(secretBytes, ALGORITHM);
+        this.ttl = ttl;
+    }
+
+    /**
+     * Issue a token for an authenticated account.
+     *
+     * @param accountNumber the account number
+     * @return the token
+     */
+    public String issue(String accountNumber) {
+        long expiresAt = Instant.now().plus(ttl).getEpochSecond();
+        byte[] payload = (accountNumber + '|' + expiresAt).getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payload) + '.' + ENCODER.encodeToString(sign(payload));
+    }
+
+    /**
+     * Verify a token and return the account number it was issued for.
+     *
+     * @param token the token
+     * @return the account number
+     * @throws InvalidTokenException if the token is malformed, tampered with or expired
+     */
+    public String verify(String token) {
+        Claims claims = parse(token);
+        if (Instant.now().getEpochSecond() >= claims.expiresAt()) {
+            throw new InvalidTokenException("Session has expired");
+        }
+        return claims.accountNumber();
+    }
+
+    /**
+     * @param token a token that {@link #verify} accepts
+     * @return true if less than half of the token's lifetime is left, so it should be reissued
+     */
+    public boolean needsRefresh(String token) {
+        return parse(token).expiresAt() - Instant.now().getEpochSecond() < ttl.toSeconds() / 2;
+    }
+
+    /**
+     * @return token lifetime in seconds
+     */
+    public long ttlSeconds() {
+        return ttl.toSeconds();
+    }
+
+    private Claims parse(String token) {
+        int dot = token == null ? -1 : token.indexOf('.');
+        if (dot < 0) {
+            throw new InvalidTokenException("Missing or invalid session");
+        }
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(0, dot));
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidTokenException("Missing or invalid session", e);
+        }
+        if (!MessageDigest.isEqual(sign(payload), signature)) {
+            throw new InvalidTokenException("Missing or invalid session");
+        }
+
+        // Signed by us, so well formed
+        String claims = new String(payload, StandardCharsets.UTF_8);
+        int separator = claims.lastIndexOf('|');
+        return new Claims(claims.substring(0, separator), Long.parseLong(claims.substring(separator + 1)));
+    }
+
+    private byte[] sign(byte[] payload) {
+        return macs.get().doFinal(payload);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    private record Claims(String accountNumber, long expiresAt) {
+    }
+}
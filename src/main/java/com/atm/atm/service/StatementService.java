@@ -0,0 +1,134 @@
+package com.atm.atm.service;
+
+import com.atm.atm.dto.TransactionDTO;
+import com.atm.atm.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Service class for account statements.
+ * Writes the transactions of a date range page by page, each page read by its own keyset
+ * query, so neither the heap used nor the time a database connection is held depends on how
+ * many transactions the statement contains or how fast the client reads it.
+ */
+@Service
+@RequiredArgsConstructor
+public class StatementService {
+
+    // Start of the range when the caller gives none; no transaction predates it
+    private static final LocalDate EARLIEST = LocalDate.of(1970, 1, 1);
+    private static final String CSV_HEADER = "id,date,type,amount,balance_after,status,description";
+
+    private final TransactionRepository transactionRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Statement output formats.
+     */
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        /**
+         * @param name format name, case-insensitive
+         * @return the format
+         * @throws IllegalArgumentException if the format is not supported
+         */
+        public static Format of(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Statement format must be csv or ndjson");
+            }
+        }
+    }
+
+    /**
+     * Write the statement of an account, oldest transaction first.
+     *
+     * @param accountId the account id
+     * @param from first day of the statement, inclusive; null for the first transaction
+     * @param to last day of the statement, inclusive; null for today
+     * @param format the output format
+     * @param writer the output, written as rows are read
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if from is after to
+     */
+    // Not transactional: each page releases its connection before it is written to the client
+    public void writeStatement(Long accountId, LocalDate from, LocalDate to, Format format, Writer writer) throws IOException {
+        LocalDate first = from != null ? from : EARLIEST;
+        LocalDate last = to != null ? to : LocalDate.now();
+        if (first.isAfter(last)) {
+            throw new IllegalArgumentException("Statement start date must not be after its end date");
+        }
+
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        LocalDateTime end = last.plusDays(1).atStartOfDay();
+        Limit limit = Limit.of(TransactionRepository.STATEMENT_PAGE_SIZE);
+        List<TransactionDTO> page = transactionRepository.findStatement(accountId, first.atStartOfDay(), end, limit);
+        while (!page.isEmpty()) {
+            for (TransactionDTO row : page) {
+                writer.write(format == Format.CSV ? csvLine(row) : objectMapper.writeValueAsString(row));
+                writer.write('\n');
+            }
+            if (page.size() < TransactionRepository.STATEMENT_PAGE_SIZE) {
+                break;
+            }
+            TransactionDTO lastRow = page.get(page.size() - 1);
+            page = transactionRepository.findStatementAfter(accountId, lastRow.getTransactionDate(), lastRow.getId(),
+                    end, limit);
+        }
+        writer.flush();
+    }
+
+    private String csvLine(TransactionDTO row) {
+        return row.getId() + ","
+                + row.getTransactionDate() + ","
+                + row.getTransactionType() + ","
+                + row.getAmount().toBigDecimal().toPlainString() + ","
+                + row.getBalanceAfterTransaction().toBigDecimal().toPlainString() + ","
+                + row.getStatus() + ","
+                + csvField(row.getDescription());
+    }
+
+    /**
+     * Quote a free-text field if it contains a separator, quote or line break.
+     */
+    private String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
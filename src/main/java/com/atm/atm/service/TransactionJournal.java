@@ -0,0 +1,247 @@
+package com.atm.atm.service;
+
+import com.atm.atm.entity.Transaction;
+import com.atm.atm.metrics.QueryCounter;
+import com.atm.atm.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Group-commit writer for the transaction log.
+ * Request threads hand in balance operations and block until they are committed. A single
+ * writer thread takes everything that is queued, runs the whole batch in one database
+ * transaction, inserts all of its {@link Transaction} rows in one JDBC batch and acknowledges
+ * every request only after that commit. It never waits for more work: an operation on an idle
+ * system is flushed at once, and under load the operations that queue up while one batch
+ * commits form the next.
+ *
+ * If a batch fails as a whole, its operations are replayed one per transaction, so a single
+ * bad operation only fails its own request.
+ */
+@Component
+public class TransactionJournal {
+
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionRepository transactionRepository;
+    private final BalanceSnapshotService balanceSnapshotService;
+    private final AccountStatisticsService accountStatisticsService;
+    private final RecentTransactionsCache recentTransactionsCache;
+    private final int maxBatchSize;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean running;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder operations = new LongAdder();
+    private final LongAdder replayedBatches = new LongAdder();
+    private final AtomicInteger largestBatch = new AtomicInteger();
+
+    public TransactionJournal(TransactionTemplate transactionTemplate,
+                              TransactionRepository transactionRepository,
+                              BalanceSnapshotService balanceSnapshotService,
+                              AccountStatisticsService accountStatisticsService,
+                              RecentTransactionsCache recentTransactionsCache,
+                              @Value("${atm.journal.max-batch-size:50}") int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("atm.journal.max-batch-size must be greater than 0");
+        }
+        this.transactionTemplate = transactionTemplate;
+        this.transactionRepository = transactionRepository;
+        this.balanceSnapshotService = balanceSnapshotService;
+        this.accountStatisticsService = accountStatisticsService;
+        this.recentTransactionsCache = recentTransactionsCache;
+        this.maxBatchSize = maxBatchSize;
+        this.writer = new Thread(this::run, "transaction-journal");
+        this.writer.setDaemon(true);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writer.join();
+        failPending();
+    }
+
+    /**
+     * Run a balance operation in the next batch and wait until it is committed.
+     * The operation runs on the writer thread inside the batch's database transaction and
+     * returns the unsaved transaction records for the changes it applied, such as both legs
+     * of a transfer. An operation that throws must not have written anything, so the rest of
+     * the batch can still commit.
+     *
+     * @param operation applies the balance changes and builds their transaction records
+     * @return the saved transaction records, in the order the operation returned them
+     */
+    public List<Transaction> submitAll(Supplier<List<Transaction>> operation) {
+        Entry entry = new Entry(operation, new CompletableFuture<>(), QueryCounter.current());
+        if (!running) {
+            throw new IllegalStateException("Transaction journal is not running");
+        }
+        queue.add(entry);
+        // The writer may have drained its queue for the last time while we were adding
+        if (!running && queue.remove(entry)) {
+            throw new IllegalStateException("Transaction journal is not running");
+        }
+
+        try {
+            return entry.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return batch counters since startup
+     */
+    public Stats stats() {
+        return new Stats(batches.sum(), operations.sum(), replayedBatches.sum(), largestBatch.get());
+    }
+
+    private void run() {
+        List<Entry> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                Entry first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Whatever queued up while the previous batch committed joins this one
+                queue.drainTo(batch, maxBatchSize - batch.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            flush(batch);
+            batch.clear();
+        }
+
+        // Commit whatever was accepted before shutdown
+        queue.drainTo(batch);
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    private void flush(List<Entry> batch) {
+        batches.increment();
+        operations.add(batch.size());
+        largestBatch.accumulateAndGet(batch.size(), Math::max);
+
+        List<Outcome> outcomes;
+        try {
+            outcomes = transactionTemplate.execute(status -> apply(batch));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).result.completeExceptionally(e);
+                return;
+            }
+            // Replay one per transaction so the failure stays with the operation that caused it
+            replayedBatches.increment();
+            for (Entry entry : batch) {
+                flush(List.of(entry));
+            }
+            return;
+        }
+
+        // Only acknowledge once the batch is committed
+        for (int i = 0; i < batch.size(); i++) {
+            Outcome outcome = outcomes.get(i);
+            if (outcome.failure() != null) {
+                batch.get(i).result.completeExceptionally(outcome.failure());
+            } else {
+                batch.get(i).result.complete(outcome.transactions());
+            }
+        }
+    }
+
+    /**
+     * Run every operation of a batch, then insert all resulting records in one flush
+     * and bring the balance snapshots, statistics and recent transactions up to date.
+     * Must run inside a transaction.
+     */
+    private List<Outcome> apply(List<Entry> batch) {
+        List<Outcome> outcomes = new ArrayList<>(batch.size());
+        List<Transaction> records = new ArrayList<>(batch.size());
+        for (Entry entry : batch) {
+            // Statements an operation runs count against the request that submitted it
+            AtomicInteger writerCount = QueryCounter.attributeTo(entry.queries);
+            try {
+                List<Transaction> transactions = entry.operation.get();
+                records.addAll(transactions);
+                outcomes.add(new Outcome(transactions, null));
+            } catch (DataAccessException e) {
+                // The database state is unknown, abort the whole batch
+                throw e;
+            } catch (RuntimeException e) {
+                outcomes.add(new Outcome(null, e));
+            } finally {
+                QueryCounter.attributeTo(writerCount);
+            }
+        }
+
+        // The batch's shared statements count against every request in it
+        AtomicInteger shared = new AtomicInteger();
+        AtomicInteger writerCount = QueryCounter.attributeTo(shared);
+        try {
+            transactionRepository.saveAll(records);
+            transactionRepository.flush();
+            balanceSnapshotService.record(records);
+            accountStatisticsService.record(records);
+            recentTransactionsCache.appendAfterCommit(records);
+        } finally {
+            QueryCounter.attributeTo(writerCount);
+        }
+        for (Entry entry : batch) {
+            entry.queries.addAndGet(shared.get());
+        }
+        return outcomes;
+    }
+
+    private void failPending() {
+        List<Entry> pending = new ArrayList<>();
+        queue.drainTo(pending);
+        for (Entry entry : pending) {
+            entry.result.completeExceptionally(new IllegalStateException("Transaction journal is not running"));
+        }
+    }
+
+    /**
+     * Batch counters.
+     */
+    public record Stats(long batches, long operations, long replayedBatches, int largestBatch) {
+    }
+
+    private record Entry(Supplier<List<Transaction>> operation, CompletableFuture<List<Transaction>> result,
+                         AtomicInteger queries) {
+    }
+
+    private record Outcome(List<Transaction> transactions, RuntimeException failure) {
+    }
+}
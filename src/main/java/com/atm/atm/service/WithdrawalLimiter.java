@@ -0,0 +1,124 @@
+package com.atm.atm.service;
+
+import com.atm.atm.entity.DailyAggregate;
+import com.atm.atm.entity.TransactionType;
+import com.atm.atm.exception.WithdrawalLimitExceededException;
+import com.atm.atm.money.Money;
+import com.atm.atm.repository.DailyAggregateRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-transaction and daily withdrawal limits.
+ * The amount each account has withdrawn today is kept in memory, so a limit check is a map
+ * lookup. The counters are loaded from the daily aggregates at startup, which are written in
+ * the same database transaction as every withdrawal, and all of them start over at midnight.
+ *
+ * Checks and updates for one account must happen under its account lock.
+ */
+@Component
+public class WithdrawalLimiter {
+
+    private final DailyAggregateRepository dailyAggregateRepository;
+    private final long maxWithdrawal;
+    private final long dailyWithdrawal;
+
+    // Minor units withdrawn on the current day, by account id
+    private final ConcurrentHashMap<Long, Long> withdrawnToday = new ConcurrentHashMap<>();
+    private volatile LocalDate day;
+
+    public WithdrawalLimiter(DailyAggregateRepository dailyAggregateRepository,
+                             @Value("${atm.limits.max-withdrawal:50000}") BigDecimal maxWithdrawal,
+                             @Value("${atm.limits.daily-withdrawal:100000}") BigDecimal dailyWithdrawal) {
+        this.dailyAggregateRepository = dailyAggregateRepository;
+        this.maxWithdrawal = Money.of(maxWithdrawal).minorUnits();
+        this.dailyWithdrawal = Money.of(dailyWithdrawal).minorUnits();
+        if (this.maxWithdrawal <= 0 || this.dailyWithdrawal <= 0) {
+            throw new IllegalArgumentException("atm.limits.* must be greater than 0");
+        }
+    }
+
+    @PostConstruct
+    void load() {
+        LocalDate today = LocalDate.now();
+        withdrawnToday.clear();
+        for (DailyAggregate aggregate : dailyAggregateRepository.findByAggregateDateAndTransactionType(today, TransactionType.WITHDRAWAL.code())) {
+            withdrawnToday.put(aggregate.getAccountId(), aggregate.getTotalAmount().minorUnits());
+        }
+        day = today;
+    }
+
+    /**
+     * Check a withdrawal against the per-transaction limit only.
+     *
+     * @param amount the amount, in minor units
+     * @throws WithdrawalLimitExceededException if the amount is above the limit
+     */
+    public void checkAmount(long amount) {
+        if (amount > maxWithdrawal) {
+            throw new WithdrawalLimitExceededException(
+                    "Withdrawal amount exceeds the limit of " + Money.ofMinor(maxWithdrawal) + " per transaction");
+        }
+    }
+
+    /**
+     * Check a withdrawal against the per-transaction and daily limits.
+     *
+     * @param accountId the account id
+     * @param amount the amount, in minor units
+     * @throws WithdrawalLimitExceededException if either limit would be exceeded
+     */
+    public void check(Long accountId, long amount) {
+        checkAmount(amount);
+        long withdrawn = withdrawnToday(accountId);
+        if (withdrawn + amount > dailyWithdrawal) {
+            throw new WithdrawalLimitExceededException(String.format(
+                    "Daily withdrawal limit of %s exceeded. Remaining today: %s",
+                    Money.ofMinor(dailyWithdrawal), Money.ofMinor(Math.max(0, dailyWithdrawal - withdrawn))));
+        }
+    }
+
+    /**
+     * @param accountId the account id
+     * @return minor units the account has withdrawn today
+     */
+    public long withdrawnToday(Long accountId) {
+        rollOver(LocalDate.now());
+        return withdrawnToday.getOrDefault(accountId, 0L);
+    }
+
+    /**
+     * Count a withdrawal once the current transaction commits, or immediately if there is none.
+     *
+     * @param accountId the account id
+     * @param amount the amount, in minor units
+     * @param date the day of the withdrawal
+     */
+    public void recordAfterCommit(Long accountId, long amount, LocalDate date) {
+        TransactionCallbacks.runAfterCommit(() -> record(accountId, amount, date));
+    }
+
+    private void record(Long accountId, long amount, LocalDate date) {
+        rollOver(LocalDate.now());
+        // A withdrawal from before midnight committing after it does not count against today
+        if (date.equals(day)) {
+            withdrawnToday.merge(accountId, amount, Long::sum);
+        }
+    }
+
+    private void rollOver(LocalDate today) {
+        if (!today.equals(day)) {
+            synchronized (this) {
+                if (!today.equals(day)) {
+                    withdrawnToday.clear();
+                    day = today;
+                }
+            }
+        }
+    }
+}
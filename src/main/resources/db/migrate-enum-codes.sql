@@ -0,0 +1,37 @@
+-- Converts a database created before account status, transaction type and transaction status,
+-- including the daily aggregates' transaction type, were stored as SMALLINT codes. Run once, with
+-- the application stopped, against an H2 database; databases created by the application since
+-- then already have the new columns.
+-- The codes must match AccountStatus, TransactionType and TransactionStatus; a value outside them
+-- maps to NULL and fails the NOT NULL constraint, so the UPDATE leaves the table unchanged.
+
+UPDATE accounts SET status = CASE status
+    WHEN 'ACTIVE' THEN '1'
+    WHEN 'INACTIVE' THEN '2'
+    WHEN 'LOCKED' THEN '3'
+END;
+ALTER TABLE accounts ALTER COLUMN status SET DATA TYPE SMALLINT;
+
+-- Indexes on transaction_type are rebuilt by the column change
+UPDATE transactions SET
+    transaction_type = CASE transaction_type
+        WHEN 'WITHDRAWAL' THEN '1'
+        WHEN 'DEPOSIT' THEN '2'
+        WHEN 'TRANSFER_OUT' THEN '3'
+        WHEN 'TRANSFER_IN' THEN '4'
+    END,
+    status = CASE status
+        WHEN 'SUCCESS' THEN '1'
+        WHEN 'FAILED' THEN '2'
+        WHEN 'PENDING' THEN '3'
+    END;
+ALTER TABLE transactions ALTER COLUMN transaction_type SET DATA TYPE SMALLINT;
+ALTER TABLE transactions ALTER COLUMN status SET DATA TYPE SMALLINT;
+
+UPDATE daily_aggregates SET transaction_type = CASE transaction_type
+    WHEN 'WITHDRAWAL' THEN '1'
+    WHEN 'DEPOSIT' THEN '2'
+    WHEN 'TRANSFER_OUT' THEN '3'
+    WHEN 'TRANSFER_IN' THEN '4'
+END;
+ALTER TABLE daily_aggregates ALTER COLUMN transaction_type SET DATA TYPE SMALLINT;
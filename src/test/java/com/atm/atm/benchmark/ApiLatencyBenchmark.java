@@ -0,0 +1,102 @@
+package com.atm.atm.benchmark;
+
+import com.atm.atm.AtmApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Starts the application on a random port and compares client-side latency of the
+ * HTML endpoints (session cookie, rendered views) with the {@code /api/v1} JSON endpoints
+ * for the same balance check and deposit.
+ *
+ * Usage: run {@link #main} from the test classpath, optionally with
+ * {@code -Dwarmup=500 -Drequests=2000}.
+ */
+public class ApiLatencyBenchmark {
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+    public static void main(String[] args) throws Exception {
+        int warmup = Integer.getInteger("warmup", 500);
+        int requests = Integer.getInteger("requests", 2_000);
+
+        try (ConfigurableApplicationContext context = SpringApplication.run(AtmApplication.class,
+                "--server.port=0", "--logging.level.com.atm.atm=INFO", "--logging.level.org.hibernate.SQL=INFO")) {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+
+            HttpClient html = HttpClient.newBuilder().cookieHandler(new CookieManager()).build();
+            send(html, HttpRequest.newBuilder(URI.create(baseUrl + "/auth/login"))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString("accountNumber=1001&pin=1234")).build());
+
+            HttpClient api = HttpClient.newHttpClient();
+            String login = send(api, HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/auth/token"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"accountNumber\":\"1002\",\"pin\":\"5678\"}")).build());
+            Matcher matcher = TOKEN.matcher(login);
+            if (!matcher.find()) {
+                throw new IllegalStateException("API login failed: " + login);
+            }
+            String authorization = "Bearer " + matcher.group(1);
+
+            HttpRequest htmlBalance = HttpRequest.newBuilder(URI.create(baseUrl + "/atm/dashboard")).GET().build();
+            HttpRequest htmlDeposit = HttpRequest.newBuilder(URI.create(baseUrl + "/atm/deposit"))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString("amount=100")).build();
+            HttpRequest apiBalance = HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/account"))
+                    .header("Authorization", authorization).GET().build();
+            HttpRequest apiDeposit = HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/deposit"))
+                    .header("Authorization", authorization)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"amount\":100}")).build();
+
+            time(html, htmlBalance, warmup);
+            time(html, htmlDeposit, warmup);
+            time(api, apiBalance, warmup);
+            time(api, apiDeposit, warmup);
+
+            report("html balance", time(html, htmlBalance, requests));
+            report("api balance", time(api, apiBalance, requests));
+            report("html deposit", time(html, htmlDeposit, requests));
+            report("api deposit", time(api, apiDeposit, requests));
+        }
+    }
+
+    private static String send(HttpClient client, HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    private static long[] time(HttpClient client, HttpRequest request, int requests)
+            throws IOException, InterruptedException {
+        long[] samples = new long[requests];
+        for (int i = 0; i < requests; i++) {
+            long start = System.nanoTime();
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            samples[i] = System.nanoTime() - start;
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException(request.uri() + " returned " + response.statusCode());
+            }
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    private static void report(String label, long[] samples) {
+        System.out.printf("%-14s p50=%.3f ms p99=%.3f ms%n", label, percentile(samples, 50), percentile(samples, 99));
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile / 100.0 * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
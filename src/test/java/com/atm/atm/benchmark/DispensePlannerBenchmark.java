@@ -0,0 +1,83 @@
+package com.atm.atm.benchmark;
+
+import com.atm.atm.cash.DispensePlanner;
+import com.atm.atm.money.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link DispensePlanner#plan} over realistic cassette states and a mix of
+ * withdrawal amounts. "full" and "worn" are answered from the precomputed table; "no-large"
+ * (the 5000 cassette is empty) and "low-small" (few 100s left) often need the bounded search.
+ *
+ * Run with {@code -prof gc} to confirm planning does not allocate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispensePlannerBenchmark {
+
+    private static final long[] DENOMINATIONS = {
+            Money.ofMajor(5000).minorUnits(), Money.ofMajor(1000).minorUnits(),
+            Money.ofMajor(500).minorUnits(), Money.ofMajor(100).minorUnits()};
+    private static final int AMOUNTS = 1024;
+
+    @Param({"full", "worn", "no-large", "low-small"})
+    public String cassettes;
+
+    private DispensePlanner planner;
+    private int[] available;
+    private long[] amounts;
+    private final int[] out = new int[DENOMINATIONS.length];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        planner = new DispensePlanner(DENOMINATIONS, Money.ofMajor(50000).minorUnits());
+        available = switch (cassettes) {
+            case "full" -> new int[]{2500, 2500, 2500, 2500};
+            case "worn" -> new int[]{400, 900, 300, 150};
+            case "no-large" -> new int[]{0, 1200, 600, 300};
+            case "low-small" -> new int[]{800, 500, 3, 2};
+            default -> throw new IllegalArgumentException(cassettes);
+        };
+
+        // Typical ATM amounts: mostly round thousands, some odd hundreds, up to the per-transaction limit
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        amounts = new long[AMOUNTS];
+        for (int i = 0; i < AMOUNTS; i++) {
+            long major = random.nextInt(10) < 7 ? 1000L * (1 + random.nextInt(50)) : 100L * (1 + random.nextInt(500));
+            amounts[i] = Money.ofMajor(major).minorUnits();
+        }
+    }
+
+    @Benchmark
+    public boolean plan() {
+        long amount = amounts[next++ & (AMOUNTS - 1)];
+        return planner.plan(amount, available, out);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DispensePlannerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
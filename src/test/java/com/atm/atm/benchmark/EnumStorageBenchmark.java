@@ -0,0 +1,208 @@
+package com.atm.atm.benchmark;
+
+import com.atm.atm.entity.TransactionStatus;
+import com.atm.atm.entity.TransactionType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Compares the transactions table with its type and status stored as VARCHAR names, as they
+ * were, against SMALLINT codes, as they are now. Seeds both layouts with the same rows and the
+ * entity's indexes in a file-backed H2 database, then reports the space each table takes with
+ * its indexes and the latency of history page and by-type history queries.
+ *
+ * Usage: run {@link #main} from the test classpath, optionally with
+ * {@code -Drows=5000000 -Daccounts=1000 -Dqueries=500}.
+ */
+public class EnumStorageBenchmark {
+
+    private static final TransactionType[] TYPES = {TransactionType.WITHDRAWAL, TransactionType.DEPOSIT};
+
+    public static void main(String[] args) throws SQLException, IOException {
+        int rows = Integer.getInteger("rows", 2_000_000);
+        int accounts = Integer.getInteger("accounts", 1_000);
+        int queries = Integer.getInteger("queries", 500);
+
+        Path directory = Files.createTempDirectory("enumbench");
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:" + directory.resolve("bench"), "sa", "")) {
+            createAccounts(connection, accounts);
+            for (Layout layout : Layout.values()) {
+                createTable(connection, layout);
+                long seedStart = System.nanoTime();
+                seed(connection, layout, rows, accounts);
+                System.out.printf("Seeded %,d %s transactions in %d ms%n",
+                        rows, layout.label, (System.nanoTime() - seedStart) / 1_000_000);
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE");
+            }
+            for (Layout layout : Layout.values()) {
+                report(connection, layout, rows, accounts, queries);
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * The two ways of storing the transaction type and status.
+     */
+    private enum Layout {
+        NAMES("names", "transactions_names", "VARCHAR(255)"),
+        CODES("codes", "transactions_codes", "SMALLINT");
+
+        final String label;
+        final String table;
+        final String columnType;
+
+        Layout(String label, String table, String columnType) {
+            this.label = label;
+            this.table = table;
+            this.columnType = columnType;
+        }
+
+        void bindType(PreparedStatement statement, int index, TransactionType type) throws SQLException {
+            if (this == NAMES) {
+                statement.setString(index, type.name());
+            } else {
+                statement.setShort(index, type.code());
+            }
+        }
+
+        void bindStatus(PreparedStatement statement, int index, TransactionStatus status) throws SQLException {
+            if (this == NAMES) {
+                statement.setString(index, status.name());
+            } else {
+                statement.setShort(index, status.code());
+            }
+        }
+    }
+
+    private static void createAccounts(Connection connection, int accounts) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE accounts (id BIGINT PRIMARY KEY, account_number VARCHAR(255) NOT NULL)");
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO accounts VALUES (?, ?)")) {
+            for (int a = 1; a <= accounts; a++) {
+                insert.setLong(1, a);
+                insert.setString(2, String.valueOf(1000 + a));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private static void createTable(Connection connection, Layout layout) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE " + layout.table + " ("
+                    + "id BIGINT PRIMARY KEY, "
+                    + "account_id BIGINT NOT NULL REFERENCES accounts(id), "
+                    + "transaction_type " + layout.columnType + " NOT NULL, "
+                    + "amount BIGINT NOT NULL, "
+                    + "balance_after_transaction BIGINT NOT NULL, "
+                    + "description VARCHAR(255), "
+                    + "status " + layout.columnType + " NOT NULL, "
+                    + "idempotency_key VARCHAR(64), "
+                    + "transaction_date TIMESTAMP NOT NULL)");
+            statement.execute("CREATE INDEX " + layout.table + "_account_date "
+                    + "ON " + layout.table + " (account_id, transaction_date DESC, id DESC)");
+            statement.execute("CREATE INDEX " + layout.table + "_account_type_date "
+                    + "ON " + layout.table + " (account_id, transaction_type, transaction_date)");
+        }
+    }
+
+    private static void seed(Connection connection, Layout layout, int rows, int accounts) throws SQLException {
+        connection.setAutoCommit(false);
+        // Same seed for both layouts, so they hold the same rows
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.now().minusYears(2);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO " + layout.table + " VALUES (?, ?, ?, ?, ?, ?, ?, NULL, ?)")) {
+            for (int i = 1; i <= rows; i++) {
+                TransactionType type = TYPES[random.nextInt(TYPES.length)];
+                insert.setLong(1, i);
+                insert.setLong(2, 1 + random.nextInt(accounts));
+                layout.bindType(insert, 3, type);
+                insert.setLong(4, (1 + random.nextInt(50)) * 10_000L);
+                insert.setLong(5, random.nextInt(10_000_000));
+                insert.setString(6, type == TransactionType.WITHDRAWAL ? "Cash withdrawal" : "Cash deposit");
+                layout.bindStatus(insert, 7, TransactionStatus.SUCCESS);
+                insert.setTimestamp(8, Timestamp.valueOf(start.plusSeconds(i * 30L)));
+                insert.addBatch();
+                if (i % 10_000 == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+        connection.setAutoCommit(true);
+    }
+
+    private static void report(Connection connection, Layout layout, int rows, int accounts, int queries)
+            throws SQLException {
+        long bytes;
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT DISK_SPACE_USED('" + layout.table.toUpperCase() + "')")) {
+            resultSet.next();
+            bytes = resultSet.getLong(1);
+        }
+
+        long[] history = time(connection, layout, accounts, queries,
+                "SELECT * FROM " + layout.table + " WHERE account_id = ? "
+                        + "ORDER BY transaction_date DESC, id DESC LIMIT 21", false);
+        long[] byType = time(connection, layout, accounts, queries,
+                "SELECT * FROM " + layout.table + " WHERE account_id = ? AND transaction_type = ? "
+                        + "ORDER BY transaction_date DESC", true);
+        System.out.printf("%-6s %,d MB (%.1f bytes/row with indexes) | history page p50=%.3f ms p99=%.3f ms "
+                        + "| by type p50=%.3f ms p99=%.3f ms%n",
+                layout.label, bytes / (1024 * 1024), (double) bytes / rows,
+                percentile(history, 50), percentile(history, 99),
+                percentile(byType, 50), percentile(byType, 99));
+    }
+
+    private static long[] time(Connection connection, Layout layout, int accounts, int queries, String sql,
+                               boolean withType) throws SQLException {
+        Random random = new Random(7);
+        long[] samples = new long[queries];
+        try (PreparedStatement query = connection.prepareStatement(sql)) {
+            for (int i = 0; i < queries; i++) {
+                query.setLong(1, 1 + random.nextInt(accounts));
+                if (withType) {
+                    layout.bindType(query, 2, TYPES[random.nextInt(TYPES.length)]);
+                }
+                long start = System.nanoTime();
+                try (ResultSet resultSet = query.executeQuery()) {
+                    while (resultSet.next()) {
+                        resultSet.getLong(1);
+                    }
+                }
+                samples[i] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile / 100.0 * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,91 @@
+package com.atm.atm.benchmark;
+
+import com.atm.atm.money.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the withdraw validation and balance arithmetic on boxed {@code Double}
+ * (the previous implementation) with the long minor-unit path used by {@code ATMService}.
+ *
+ * Run with {@code -prof gc} to see the allocation difference.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyArithmeticBenchmark {
+
+    private static final long CASH_MULTIPLE = 100 * Money.MINOR_UNITS_PER_MAJOR;
+
+    @Param({"500", "12300", "49900"})
+    public long amount;
+
+    private Double doubleBalance;
+    private Double doubleAmount;
+    private Money moneyBalance;
+    private Money moneyAmount;
+
+    @Setup
+    public void setUp() {
+        doubleBalance = 50000.0;
+        doubleAmount = (double) amount;
+        moneyBalance = Money.ofMajor(50000);
+        moneyAmount = Money.ofMajor(amount);
+    }
+
+    /**
+     * The old path: boxed comparisons, {@code %} on a double and a boxed result.
+     */
+    @Benchmark
+    public Double doubleWithdraw() {
+        Double requested = doubleAmount;
+        if (requested <= 0 || requested % 100 != 0 || doubleBalance < requested) {
+            return doubleBalance;
+        }
+        return doubleBalance - requested;
+    }
+
+    /**
+     * The new path: primitive long arithmetic on minor units.
+     */
+    @Benchmark
+    public long moneyWithdraw() {
+        long requested = moneyAmount.minorUnits();
+        long balance = moneyBalance.minorUnits();
+        if (requested <= 0 || requested % CASH_MULTIPLE != 0 || balance < requested) {
+            return balance;
+        }
+        return balance - requested;
+    }
+
+    /**
+     * The new path including wrapping the resulting balance back into a {@link Money}.
+     */
+    @Benchmark
+    public Money moneyWithdrawWrapped() {
+        return Money.ofMinor(moneyWithdraw());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MoneyArithmeticBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
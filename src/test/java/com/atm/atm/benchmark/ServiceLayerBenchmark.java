@@ -0,0 +1,313 @@
+package com.atm.atm.benchmark;
+
+import com.atm.atm.AtmApplication;
+import com.atm.atm.dto.AccountDTO;
+import com.atm.atm.dto.TransactionDTO;
+import com.atm.atm.dto.TransactionPage;
+import com.atm.atm.entity.Account;
+import com.atm.atm.entity.AccountStatus;
+import com.atm.atm.entity.Cassette;
+import com.atm.atm.entity.Transaction;
+import com.atm.atm.entity.TransactionStatus;
+import com.atm.atm.entity.TransactionType;
+import com.atm.atm.money.Money;
+import com.atm.atm.repository.AccountRepository;
+import com.atm.atm.repository.CassetteRepository;
+import com.atm.atm.repository.TransactionRepository;
+import com.atm.atm.service.ATMService;
+import com.atm.atm.service.AccountService;
+import com.atm.atm.service.PinHasher;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the service-layer hot paths against the application's embedded H2 database:
+ * withdraw and deposit through the account locks and the transaction journal, PIN
+ * authentication, entity-to-DTO mapping and history reads. The database is seeded with
+ * {@code accounts} accounts of {@code transactionsPerAccount} transactions each. Every
+ * operation has a single-threaded variant and a {@code Parallel} variant on 8 threads,
+ * each thread picking accounts at random so that contention depends on the account count.
+ *
+ * The {@code Hydrated} and {@code Projected} pairs compare reading an account or a history
+ * page as managed entities copied into DTOs, as the read paths did, against selecting
+ * straight into DTOs in a read-only transaction, as they do now. Run them with the GC
+ * profiler to get allocation per operation alongside latency:
+ * {@code mvn -Pbenchmark verify -Djmh.args="ServiceLayerBenchmark.*(Hydrated|Projected) -prof gc"}.
+ *
+ * Usage: run {@link #main} from the test classpath, or
+ * {@code mvn -Pbenchmark verify -Djmh.args="ServiceLayerBenchmark -p accounts=1000"}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceLayerBenchmark {
+
+    private static final String PIN = "2468";
+    private static final int PAGE_SIZE = 20;
+    private static final int SEED_CHUNK = 1_000;
+    private static final String PAGE_QUERY = "SELECT t FROM Transaction t WHERE t.account.id = :accountId "
+            + "ORDER BY t.transactionDate DESC, t.id DESC";
+
+    /**
+     * The running application and its seeded accounts, shared by all benchmark threads.
+     */
+    @State(Scope.Benchmark)
+    public static class Bank {
+
+        @Param({"10", "1000"})
+        public int accounts;
+
+        @Param({"100", "1000"})
+        public int transactionsPerAccount;
+
+        ConfigurableApplicationContext context;
+        ATMService atmService;
+        AccountService accountService;
+        AccountRepository accountRepository;
+        TransactionRepository transactionRepository;
+        EntityManager entityManager;
+        TransactionTemplate transactionTemplate;
+        TransactionTemplate readOnlyTemplate;
+        List<Account> seeded;
+        List<Transaction> page;
+
+        @Setup(Level.Trial)
+        public void start() {
+            context = SpringApplication.run(AtmApplication.class,
+                    "--spring.main.web-application-type=none",
+                    "--spring.datasource.url=jdbc:h2:mem:servicebench;DB_CLOSE_DELAY=-1",
+                    "--atm.limits.daily-withdrawal=1000000000",
+                    "--atm.snapshots.rebuild-cron=-",
+                    "--logging.level.com.atm.atm=WARN",
+                    "--logging.level.org.hibernate.SQL=WARN");
+            atmService = context.getBean(ATMService.class);
+            accountService = context.getBean(AccountService.class);
+
+            accountRepository = context.getBean(AccountRepository.class);
+            transactionRepository = context.getBean(TransactionRepository.class);
+            entityManager = SharedEntityManagerCreator.createSharedEntityManager(
+                    context.getBean(EntityManagerFactory.class));
+            transactionTemplate = context.getBean(TransactionTemplate.class);
+            readOnlyTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+            readOnlyTemplate.setReadOnly(true);
+
+            // Enough notes that the terminal never runs dry during a trial
+            CassetteRepository cassetteRepository = context.getBean(CassetteRepository.class);
+            for (Cassette cassette : cassetteRepository.findAll()) {
+                cassette.setNoteCount(Integer.MAX_VALUE / 2);
+                cassetteRepository.save(cassette);
+            }
+
+            String pinHash = context.getBean(PinHasher.class).hash(PIN);
+            seeded = new ArrayList<>(accounts);
+            for (int a = 0; a < accounts; a++) {
+                Account account = new Account();
+                account.setAccountNumber("BENCH-" + a);
+                account.setPin(pinHash);
+                account.setAccountHolderName("Benchmark " + a);
+                account.setBalance(Money.ofMajor(1_000_000_000L));
+                account.setStatus(AccountStatus.ACTIVE);
+                seeded.add(accountRepository.save(account));
+            }
+
+            LocalDateTime start = LocalDateTime.now().minusDays(365);
+            for (Account account : seeded) {
+                for (int from = 0; from < transactionsPerAccount; from += SEED_CHUNK) {
+                    int first = from;
+                    int last = Math.min(transactionsPerAccount, from + SEED_CHUNK);
+                    transactionTemplate.executeWithoutResult(status -> {
+                        List<Transaction> chunk = new ArrayList<>(last - first);
+                        for (int i = first; i < last; i++) {
+                            Transaction transaction = new Transaction();
+                            transaction.setAccount(account);
+                            transaction.setTransactionType(i % 2 == 0 ? TransactionType.DEPOSIT : TransactionType.WITHDRAWAL);
+                            transaction.setAmount(Money.ofMajor(100));
+                            transaction.setBalanceAfterTransaction(account.getBalance());
+                            transaction.setDescription("Seeded transaction");
+                            transaction.setStatus(TransactionStatus.SUCCESS);
+                            transaction.setTransactionDate(start.plusMinutes(i));
+                            chunk.add(transaction);
+                        }
+                        transactionRepository.saveAll(chunk);
+                    });
+                }
+            }
+
+            page = entityPage(seeded.get(0).getId());
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            context.close();
+        }
+
+        Account randomAccount() {
+            return seeded.get(ThreadLocalRandom.current().nextInt(seeded.size()));
+        }
+
+        /**
+         * The newest page of an account's history as managed entities, as the read paths loaded it
+         * before they selected straight into DTOs.
+         */
+        List<Transaction> entityPage(Long accountId) {
+            return entityManager.createQuery(PAGE_QUERY, Transaction.class)
+                    .setParameter("accountId", accountId)
+                    .setMaxResults(PAGE_SIZE)
+                    .getResultList();
+        }
+    }
+
+    @Benchmark
+    public TransactionDTO withdraw(Bank bank) {
+        return bank.atmService.withdraw(bank.randomAccount(), Money.ofMajor(100));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public TransactionDTO withdrawParallel(Bank bank) {
+        return withdraw(bank);
+    }
+
+    @Benchmark
+    public TransactionDTO deposit(Bank bank) {
+        return bank.atmService.deposit(bank.randomAccount(), Money.ofMajor(100));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public TransactionDTO depositParallel(Bank bank) {
+        return deposit(bank);
+    }
+
+    @Benchmark
+    public AccountDTO authenticate(Bank bank) {
+        return bank.accountService.authenticate(bank.randomAccount().getAccountNumber(), PIN);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public AccountDTO authenticateParallel(Bank bank) {
+        return authenticate(bank);
+    }
+
+    @Benchmark
+    public TransactionPage historyPage(Bank bank) {
+        return bank.atmService.getTransactionPage(bank.randomAccount().getId(), null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public TransactionPage historyPageParallel(Bank bank) {
+        return historyPage(bank);
+    }
+
+    /**
+     * The whole history read page by page, following the cursors.
+     */
+    @Benchmark
+    public int allHistoryPages(Bank bank) {
+        Long accountId = bank.randomAccount().getId();
+        int rows = 0;
+        String cursor = null;
+        do {
+            TransactionPage page = bank.atmService.getTransactionPage(accountId, cursor, PAGE_SIZE);
+            rows += page.getTransactions().size();
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return rows;
+    }
+
+    @Benchmark
+    @Threads(8)
+    public int allHistoryPagesParallel(Bank bank) {
+        return allHistoryPages(bank);
+    }
+
+    /**
+     * Mapping one history page of loaded entities, without the database.
+     */
+    @Benchmark
+    public void mapToDTO(Bank bank, Blackhole blackhole) {
+        for (Transaction transaction : bank.page) {
+            blackhole.consume(ATMService.mapToDTO(transaction));
+        }
+    }
+
+    /**
+     * An account read as a managed entity in a read-write transaction, then copied into its DTO.
+     */
+    @Benchmark
+    public AccountDTO accountHydrated(Bank bank) {
+        String accountNumber = bank.randomAccount().getAccountNumber();
+        return bank.transactionTemplate.execute(status -> AccountService.mapToDTO(
+                bank.accountRepository.findByAccountNumber(accountNumber).orElseThrow()));
+    }
+
+    /**
+     * An account selected straight into its DTO in a read-only transaction.
+     */
+    @Benchmark
+    public AccountDTO accountProjected(Bank bank) {
+        String accountNumber = bank.randomAccount().getAccountNumber();
+        return bank.readOnlyTemplate.execute(status ->
+                bank.accountRepository.findDtoByAccountNumber(accountNumber).orElseThrow().getAccount());
+    }
+
+    /**
+     * A history page read as managed entities in a read-write transaction, then copied into DTOs.
+     */
+    @Benchmark
+    public List<TransactionDTO> historyPageHydrated(Bank bank) {
+        Long accountId = bank.randomAccount().getId();
+        return bank.transactionTemplate.execute(status -> bank.entityPage(accountId).stream()
+                .map(ATMService::mapToDTO)
+                .toList());
+    }
+
+    /**
+     * A history page selected straight into DTOs in a read-only transaction.
+     */
+    @Benchmark
+    public List<TransactionDTO> historyPageProjected(Bank bank) {
+        Long accountId = bank.randomAccount().getId();
+        return bank.readOnlyTemplate.execute(status ->
+                bank.transactionRepository.findHistory(accountId, Limit.of(PAGE_SIZE)));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ServiceLayerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
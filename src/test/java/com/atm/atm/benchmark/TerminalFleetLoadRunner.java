@@ -0,0 +1,388 @@
+package com.atm.atm.benchmark;
+
+import com.atm.atm.AtmApplication;
+import com.atm.atm.entity.Account;
+import com.atm.atm.entity.AccountStatus;
+import com.atm.atm.entity.Cassette;
+import com.atm.atm.money.Money;
+import com.atm.atm.repository.AccountRepository;
+import com.atm.atm.repository.CassetteRepository;
+import com.atm.atm.service.PinHasher;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Simulates a fleet of terminals driving the HTML interface ({@code AuthController} and
+ * {@code ATMController}) to find how many terminals one instance supports. Each terminal
+ * loops over customer sessions: login, dashboard, a withdrawal or deposit through its form,
+ * history, logout, with an exponentially distributed think time between steps. Accounts are
+ * picked from a Zipf distribution, so a few hot accounts take most of the traffic.
+ * Reports throughput, error rate and p50/p95/p99 latency per endpoint.
+ *
+ * Usage: run {@link #main} from the test classpath, or from Maven with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.atm.atm.benchmark.TerminalFleetLoadRunner -Dterminals=500}.
+ * Options (system properties):
+ * <ul>
+ *   <li>{@code terminals} - simulated terminals (default 200)</li>
+ *   <li>{@code seconds} - measurement window (default 60)</li>
+ *   <li>{@code thinkMillis} - mean think time between steps, 0 for none (default 500)</li>
+ *   <li>{@code accounts} - accounts to seed (default 1000)</li>
+ *   <li>{@code skew} - Zipf exponent of account popularity, 0 for uniform (default 1.0)</li>
+ *   <li>{@code withdrawRatio} - share of sessions that withdraw rather than deposit (default 0.6)</li>
+ *   <li>{@code baseUrl} - drive an already running instance instead of starting one; it is
+ *       not seeded, so {@code credentials} (default {@code 1001:1234,1002:5678,1003:9012})
+ *       names the accounts to use, and its withdrawal limits and cash apply</li>
+ * </ul>
+ */
+public class TerminalFleetLoadRunner {
+
+    private static final String PIN = "0000";
+    private static final Pattern IDEMPOTENCY_KEY =
+            Pattern.compile("name=\"idempotencyKey\"[^>]*value=\"([^\"]*)\"|value=\"([^\"]*)\"[^>]*name=\"idempotencyKey\"");
+    // Business failures are rendered into the page with a 200 status
+    private static final String ERROR_ALERT = "alert-danger";
+
+    /**
+     * The steps of a session, in the order they are reported.
+     */
+    private enum Endpoint {
+        LOGIN("POST /auth/login"),
+        DASHBOARD("GET  /atm/dashboard"),
+        WITHDRAW_FORM("GET  /atm/withdraw"),
+        WITHDRAW("POST /atm/withdraw"),
+        DEPOSIT_FORM("GET  /atm/deposit"),
+        DEPOSIT("POST /atm/deposit"),
+        HISTORY("GET  /atm/history"),
+        LOGOUT("GET  /atm/logout");
+
+        private final String label;
+
+        Endpoint(String label) {
+            this.label = label;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int terminals = Integer.getInteger("terminals", 200);
+        Duration window = Duration.ofSeconds(Integer.getInteger("seconds", 60));
+        long thinkMillis = Long.getLong("thinkMillis", 500);
+        double skew = Double.parseDouble(System.getProperty("skew", "1.0"));
+        double withdrawRatio = Double.parseDouble(System.getProperty("withdrawRatio", "0.6"));
+        String baseUrl = System.getProperty("baseUrl");
+
+        if (baseUrl != null) {
+            String[][] credentials = Arrays.stream(System.getProperty("credentials", "1001:1234,1002:5678,1003:9012")
+                            .split(","))
+                    .map(credential -> credential.trim().split(":", 2))
+                    .toArray(String[][]::new);
+            run(new Fleet(baseUrl, credentials, new ZipfSampler(credentials.length, skew), thinkMillis, withdrawRatio),
+                    terminals, window);
+            return;
+        }
+
+        int accounts = Integer.getInteger("accounts", 1_000);
+        try (ConfigurableApplicationContext context = SpringApplication.run(AtmApplication.class,
+                "--server.port=0", "--logging.level.com.atm.atm=INFO", "--logging.level.org.hibernate.SQL=INFO",
+                "--server.tomcat.max-connections=20000", "--server.tomcat.accept-count=1000",
+                // Hot accounts would otherwise hit the daily limit within seconds
+                "--atm.limits.daily-withdrawal=1000000000")) {
+            String[][] credentials = seed(context, accounts);
+            String url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            run(new Fleet(url, credentials, new ZipfSampler(accounts, skew), thinkMillis, withdrawRatio),
+                    terminals, window);
+        }
+    }
+
+    private static String[][] seed(ConfigurableApplicationContext context, int accounts) {
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+        String pinHash = context.getBean(PinHasher.class).hash(PIN);
+        List<Account> batch = new ArrayList<>(accounts);
+        String[][] credentials = new String[accounts][];
+        for (int i = 0; i < accounts; i++) {
+            Account account = new Account();
+            account.setAccountNumber("FLEET-" + i);
+            account.setPin(pinHash);
+            account.setAccountHolderName("Fleet Test");
+            account.setBalance(Money.ofMajor(1_000_000_000L));
+            account.setStatus(AccountStatus.ACTIVE);
+            batch.add(account);
+            credentials[i] = new String[]{account.getAccountNumber(), PIN};
+        }
+        accountRepository.saveAll(batch);
+
+        // Keep the default terminal from running out of notes
+        CassetteRepository cassetteRepository = context.getBean(CassetteRepository.class);
+        for (Cassette cassette : cassetteRepository.findAll()) {
+            cassette.setNoteCount(Integer.MAX_VALUE / 2);
+            cassetteRepository.save(cassette);
+        }
+        return credentials;
+    }
+
+    private static void run(Fleet fleet, int terminals, Duration window) throws Exception {
+        System.out.printf("terminals=%,d window=%ds think=%dms accounts=%,d skew=%.2f target=%s%n",
+                terminals, window.toSeconds(), fleet.thinkMillis, fleet.credentials.length,
+                fleet.accounts.skew, fleet.baseUrl);
+
+        Stats total = new Stats();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            long deadline = System.nanoTime() + window.toNanos();
+            List<Future<Stats>> results = new ArrayList<>(terminals);
+            for (int t = 0; t < terminals; t++) {
+                results.add(pool.submit(() -> fleet.terminal(deadline)));
+            }
+            for (Future<Stats> result : results) {
+                total.addAll(result.get());
+            }
+        }
+        report(total, window);
+    }
+
+    private static void report(Stats stats, Duration window) {
+        double seconds = window.toSeconds();
+        System.out.printf("sessions=%,d (%.1f/s)%n", stats.sessions, stats.sessions / seconds);
+        System.out.printf("%-20s %10s %10s %8s %10s %10s %10s%n",
+                "endpoint", "requests", "req/s", "errors", "p50 ms", "p95 ms", "p99 ms");
+        long requests = 0;
+        long errors = 0;
+        for (Endpoint endpoint : Endpoint.values()) {
+            long[] sorted = stats.latencies[endpoint.ordinal()].sorted();
+            long failed = stats.errors[endpoint.ordinal()];
+            requests += sorted.length;
+            errors += failed;
+            System.out.printf("%-20s %,10d %,10.1f %7.2f%% %10.3f %10.3f %10.3f%n",
+                    endpoint.label, sorted.length, sorted.length / seconds, errorRate(failed, sorted.length),
+                    percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99));
+        }
+        System.out.printf("%-20s %,10d %,10.1f %7.2f%%%n", "total", requests, requests / seconds,
+                errorRate(errors, requests));
+    }
+
+    private static double errorRate(long errors, long requests) {
+        return requests == 0 ? 0 : 100.0 * errors / requests;
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile / 100.0 * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    /**
+     * Shared, read-only configuration of the simulated terminals.
+     */
+    private record Fleet(String baseUrl, String[][] credentials, ZipfSampler accounts,
+                         long thinkMillis, double withdrawRatio) {
+
+        /**
+         * One terminal: sessions back to back until the deadline, with its own cookie jar.
+         */
+        Stats terminal(long deadline) {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .cookieHandler(new CookieManager())
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .build();
+            Stats stats = new Stats();
+            try {
+                while (System.nanoTime() < deadline) {
+                    session(client, stats);
+                    stats.sessions++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return stats;
+        }
+
+        private void session(HttpClient client, Stats stats) throws InterruptedException {
+            String[] credential = credentials[accounts.next()];
+            HttpResponse<String> login = send(client, stats, Endpoint.LOGIN, form(baseUrl + "/auth/login",
+                    "accountNumber=" + encode(credential[0]) + "&pin=" + encode(credential[1])), 302);
+            if (login == null) {
+                return;
+            }
+            think();
+            send(client, stats, Endpoint.DASHBOARD, get(baseUrl + "/atm/dashboard"), 200);
+            think();
+
+            boolean withdraw = ThreadLocalRandom.current().nextDouble() < withdrawRatio;
+            String path = withdraw ? "/atm/withdraw" : "/atm/deposit";
+            HttpResponse<String> page = send(client, stats, withdraw ? Endpoint.WITHDRAW_FORM : Endpoint.DEPOSIT_FORM,
+                    get(baseUrl + path), 200);
+            if (page != null) {
+                think();
+                long amount = 100L * (1 + ThreadLocalRandom.current().nextInt(20));
+                send(client, stats, withdraw ? Endpoint.WITHDRAW : Endpoint.DEPOSIT,
+                        form(baseUrl + path, "amount=" + amount + "&idempotencyKey=" + encode(idempotencyKey(page.body()))),
+                        200);
+            }
+            think();
+            send(client, stats, Endpoint.HISTORY, get(baseUrl + "/atm/history"), 200);
+            think();
+            send(client, stats, Endpoint.LOGOUT, get(baseUrl + "/atm/logout"), 302);
+        }
+
+        /**
+         * Send one request and record its latency; a response with another status, a login that
+         * does not lead to the dashboard, or a page showing an error alert counts as an error.
+         *
+         * @return the response, or null if the step failed
+         */
+        private HttpResponse<String> send(HttpClient client, Stats stats, Endpoint endpoint,
+                                          HttpRequest request, int expectedStatus) throws InterruptedException {
+            long start = System.nanoTime();
+            HttpResponse<String> response;
+            try {
+                response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                stats.record(endpoint, System.nanoTime() - start, false);
+                return null;
+            }
+            boolean ok = response.statusCode() == expectedStatus
+                    && (endpoint != Endpoint.LOGIN
+                        || response.headers().firstValue("Location").orElse("").endsWith("/atm/dashboard"))
+                    && !response.body().contains(ERROR_ALERT);
+            stats.record(endpoint, System.nanoTime() - start, ok);
+            return ok ? response : null;
+        }
+
+        private void think() throws InterruptedException {
+            if (thinkMillis > 0) {
+                // Exponential think time, so terminals do not move in lockstep
+                double millis = -thinkMillis * Math.log(1 - ThreadLocalRandom.current().nextDouble());
+                Thread.sleep((long) millis);
+            }
+        }
+
+        private static HttpRequest get(String url) {
+            return HttpRequest.newBuilder(URI.create(url)).GET().build();
+        }
+
+        private static HttpRequest form(String url, String body) {
+            return HttpRequest.newBuilder(URI.create(url))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+
+        private static String idempotencyKey(String page) {
+            Matcher matcher = IDEMPOTENCY_KEY.matcher(page);
+            if (!matcher.find()) {
+                return "";
+            }
+            return matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+        }
+
+        private static String encode(String value) {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Picks account indexes with probability proportional to {@code 1 / rank^skew}.
+     */
+    private static final class ZipfSampler {
+        private final double skew;
+        private final double[] cumulative;
+
+        ZipfSampler(int size, double skew) {
+            this.skew = skew;
+            this.cumulative = new double[size];
+            double sum = 0;
+            for (int rank = 1; rank <= size; rank++) {
+                sum += 1 / Math.pow(rank, skew);
+                cumulative[rank - 1] = sum;
+            }
+            for (int i = 0; i < size; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        int next() {
+            int index = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextDouble());
+            return Math.min(cumulative.length - 1, index >= 0 ? index : -index - 1);
+        }
+    }
+
+    /**
+     * Latencies and error counts per endpoint, owned by one terminal until merged.
+     */
+    private static final class Stats {
+        private final Samples[] latencies = new Samples[Endpoint.values().length];
+        private final long[] errors = new long[Endpoint.values().length];
+        private long sessions;
+
+        Stats() {
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new Samples();
+            }
+        }
+
+        void record(Endpoint endpoint, long nanos, boolean ok) {
+            latencies[endpoint.ordinal()].add(nanos);
+            if (!ok) {
+                errors[endpoint.ordinal()]++;
+            }
+        }
+
+        void addAll(Stats other) {
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i].addAll(other.latencies[i]);
+                errors[i] += other.errors[i];
+            }
+            sessions += other.sessions;
+        }
+    }
+
+    /**
+     * Growable array of latency samples in nanoseconds.
+     */
+    private static final class Samples {
+        private long[] values = new long[64];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(Samples other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+        }
+
+        long[] sorted() {
+            long[] result = Arrays.copyOf(values, size);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
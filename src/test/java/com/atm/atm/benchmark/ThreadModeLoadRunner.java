@@ -0,0 +1,209 @@
+package com.atm.atm.benchmark;
+
+import com.atm.atm.AtmApplication;
+import com.atm.atm.entity.Account;
+import com.atm.atm.entity.AccountStatus;
+import com.atm.atm.money.Money;
+import com.atm.atm.repository.AccountRepository;
+import com.atm.atm.service.PinHasher;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Load test comparing Tomcat's platform thread pool with the virtual-thread execution mode.
+ * For each mode it starts the application on a random port and drives it with 1k, 5k and 10k
+ * simulated terminals through the JSON API. Every terminal logs in once and then loops a
+ * balance check followed by a deposit until the measurement window ends. Reports throughput,
+ * p50 and p99 latency and the number of failed requests per level.
+ *
+ * Usage: run {@link #main} from the test classpath, optionally with
+ * {@code -Dterminals=1000,5000,10000 -Dseconds=20 -Daccounts=1000}.
+ * The client needs a file descriptor limit above the largest terminal count ({@code ulimit -n}).
+ * Add {@code -Djdk.tracePinnedThreads=short} to log virtual threads pinned by JDBC calls.
+ */
+public class ThreadModeLoadRunner {
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+    public static void main(String[] args) throws Exception {
+        int[] levels = Arrays.stream(System.getProperty("terminals", "1000,5000,10000").split(","))
+                .mapToInt(level -> Integer.parseInt(level.trim()))
+                .toArray();
+        Duration window = Duration.ofSeconds(Integer.getInteger("seconds", 20));
+        int accounts = Integer.getInteger("accounts", 1_000);
+
+        for (String mode : new String[]{"platform", "virtual"}) {
+            List<String> arguments = new ArrayList<>(List.of("--server.port=0",
+                    "--logging.level.com.atm.atm=INFO", "--logging.level.org.hibernate.SQL=INFO",
+                    "--server.tomcat.max-connections=20000", "--server.tomcat.accept-count=1000",
+                    // Logins happen before the clock starts; cheap PIN hashes keep logging in 10k terminals short
+                    "--atm.pin.kdf-iterations=1000"));
+            if (mode.equals("virtual")) {
+                arguments.add("--spring.profiles.active=virtual");
+            }
+
+            try (ConfigurableApplicationContext context = SpringApplication.run(AtmApplication.class,
+                    arguments.toArray(String[]::new))) {
+                seedAccounts(context.getBean(AccountRepository.class), context.getBean(PinHasher.class), accounts);
+                String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+                for (int terminals : levels) {
+                    run(mode, baseUrl, terminals, accounts, window);
+                }
+            }
+        }
+    }
+
+    private static void seedAccounts(AccountRepository accountRepository, PinHasher pinHasher, int accounts) {
+        String pinHash = pinHasher.hash("0000");
+        List<Account> batch = new ArrayList<>(accounts);
+        for (int i = 0; i < accounts; i++) {
+            Account account = new Account();
+            account.setAccountNumber(accountNumber(i));
+            account.setPin(pinHash);
+            account.setAccountHolderName("Load Test");
+            account.setBalance(Money.ofMajor(1_000_000));
+            account.setStatus(AccountStatus.ACTIVE);
+            batch.add(account);
+        }
+        accountRepository.saveAll(batch);
+    }
+
+    private static void run(String mode, String baseUrl, int terminals, int accounts, Duration window)
+            throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        LongAdder failures = new LongAdder();
+
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            // Log every terminal in before the clock starts
+            List<Future<String>> logins = new ArrayList<>(terminals);
+            for (int t = 0; t < terminals; t++) {
+                String accountNumber = accountNumber(t % accounts);
+                logins.add(pool.submit(() -> login(client, baseUrl, accountNumber)));
+            }
+            List<String> tokens = new ArrayList<>(terminals);
+            for (Future<String> login : logins) {
+                tokens.add(login.get());
+            }
+
+            long deadline = System.nanoTime() + window.toNanos();
+            List<Future<Samples>> results = new ArrayList<>(terminals);
+            for (String token : tokens) {
+                results.add(pool.submit(() -> terminal(client, baseUrl, token, deadline, failures)));
+            }
+
+            Samples all = new Samples();
+            for (Future<Samples> result : results) {
+                all.addAll(result.get());
+            }
+            long[] sorted = all.sorted();
+            System.out.printf("%-8s terminals=%,6d throughput=%,9.0f req/s p50=%8.3f ms p99=%8.3f ms failed=%,d%n",
+                    mode, terminals, sorted.length / (double) window.toSeconds(),
+                    percentile(sorted, 50), percentile(sorted, 99), failures.sum());
+        }
+    }
+
+    private static Samples terminal(HttpClient client, String baseUrl, String token, long deadline,
+                                    LongAdder failures) {
+        HttpRequest balance = HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/account"))
+                .header("Authorization", "Bearer " + token).GET().build();
+        HttpRequest deposit = HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/deposit"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"amount\":100}")).build();
+
+        Samples samples = new Samples();
+        while (System.nanoTime() < deadline) {
+            send(client, balance, samples, failures);
+            send(client, deposit, samples, failures);
+        }
+        return samples;
+    }
+
+    private static void send(HttpClient client, HttpRequest request, Samples samples, LongAdder failures) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                failures.increment();
+                return;
+            }
+            samples.add(System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failures.increment();
+        } catch (Exception e) {
+            failures.increment();
+        }
+    }
+
+    private static String login(HttpClient client, String baseUrl, String accountNumber) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/auth/token"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"accountNumber\":\"" + accountNumber + "\",\"pin\":\"0000\"}"))
+                .build();
+        String body = client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+        Matcher matcher = TOKEN.matcher(body);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Login failed for " + accountNumber + ": " + body);
+        }
+        return matcher.group(1);
+    }
+
+    private static String accountNumber(int index) {
+        return "LOAD-" + index;
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile / 100.0 * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    /**
+     * Growable array of latency samples in nanoseconds, owned by one terminal.
+     */
+    private static final class Samples {
+        private long[] values = new long[256];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(Samples other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+        }
+
+        long[] sorted() {
+            long[] result = Arrays.copyOf(values, size);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
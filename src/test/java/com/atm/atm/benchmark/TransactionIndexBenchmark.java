@@ -0,0 +1,144 @@
+package com.atm.atm.benchmark;
+
+import com.atm.atm.entity.TransactionStatus;
+import com.atm.atm.entity.TransactionType;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Seeds an H2 database with a large transactions table and reports history query
+ * latency before and after adding the indexes declared on the {@code Transaction} entity.
+ *
+ * Usage: run {@link #main} from the test classpath, optionally with
+ * {@code -Drows=1000000 -Daccounts=1000 -Dqueries=500}.
+ */
+public class TransactionIndexBenchmark {
+
+    private static final TransactionType[] TYPES = {TransactionType.WITHDRAWAL, TransactionType.DEPOSIT};
+
+    public static void main(String[] args) throws SQLException {
+        int rows = Integer.getInteger("rows", 1_000_000);
+        int accounts = Integer.getInteger("accounts", 1_000);
+        int queries = Integer.getInteger("queries", 500);
+
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:indexbench;DB_CLOSE_DELAY=-1", "sa", "")) {
+            createSchema(connection);
+            long seedStart = System.nanoTime();
+            seed(connection, rows, accounts);
+            System.out.printf("Seeded %,d transactions over %,d accounts in %d ms%n",
+                    rows, accounts, (System.nanoTime() - seedStart) / 1_000_000);
+
+            report("without indexes", connection, accounts, queries);
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE INDEX idx_transactions_account_date "
+                        + "ON transactions (account_id, transaction_date DESC, id DESC)");
+                statement.execute("CREATE INDEX idx_transactions_account_type_date "
+                        + "ON transactions (account_id, transaction_type, transaction_date)");
+                statement.execute("ANALYZE");
+            }
+
+            report("with indexes", connection, accounts, queries);
+        }
+    }
+
+    private static void createSchema(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE accounts (id BIGINT PRIMARY KEY, account_number VARCHAR(255) NOT NULL)");
+            statement.execute("CREATE UNIQUE INDEX ux_accounts_account_number ON accounts (account_number)");
+            statement.execute("CREATE TABLE transactions ("
+                    + "id BIGINT PRIMARY KEY, "
+                    + "account_id BIGINT NOT NULL REFERENCES accounts(id), "
+                    + "transaction_type SMALLINT NOT NULL, "
+                    + "amount BIGINT NOT NULL, "
+                    + "balance_after_transaction BIGINT NOT NULL, "
+                    + "description VARCHAR(255), "
+                    + "status SMALLINT NOT NULL, "
+                    + "transaction_date TIMESTAMP NOT NULL)");
+        }
+    }
+
+    private static void seed(Connection connection, int rows, int accounts) throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO accounts VALUES (?, ?)")) {
+            for (int a = 1; a <= accounts; a++) {
+                insert.setLong(1, a);
+                insert.setString(2, String.valueOf(1000 + a));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.now().minusYears(2);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO transactions VALUES (?, ?, ?, ?, ?, ?, " + TransactionStatus.SUCCESS.code() + ", ?)")) {
+            for (int i = 1; i <= rows; i++) {
+                insert.setLong(1, i);
+                insert.setLong(2, 1 + random.nextInt(accounts));
+                insert.setShort(3, TYPES[random.nextInt(TYPES.length)].code());
+                insert.setLong(4, (1 + random.nextInt(50)) * 10_000L);
+                insert.setLong(5, random.nextInt(10_000_000));
+                insert.setString(6, "Seeded transaction");
+                insert.setTimestamp(7, Timestamp.valueOf(start.plusSeconds(i * 60L)));
+                insert.addBatch();
+                if (i % 10_000 == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+        connection.setAutoCommit(true);
+    }
+
+    private static void report(String label, Connection connection, int accounts, int queries) throws SQLException {
+        long[] history = time(connection, accounts, queries,
+                "SELECT * FROM transactions WHERE account_id = ? "
+                        + "ORDER BY transaction_date DESC, id DESC LIMIT 21", false);
+        long[] byType = time(connection, accounts, queries,
+                "SELECT * FROM transactions WHERE account_id = ? AND transaction_type = ? "
+                        + "ORDER BY transaction_date DESC", true);
+        System.out.printf("%-16s history page p50=%.3f ms p99=%.3f ms | by type p50=%.3f ms p99=%.3f ms%n",
+                label, percentile(history, 50), percentile(history, 99),
+                percentile(byType, 50), percentile(byType, 99));
+    }
+
+    private static long[] time(Connection connection, int accounts, int queries, String sql, boolean withType)
+            throws SQLException {
+        Random random = new Random(7);
+        long[] samples = new long[queries];
+        try (PreparedStatement query = connection.prepareStatement(sql)) {
+            for (int i = 0; i < queries; i++) {
+                query.setLong(1, 1 + random.nextInt(accounts));
+                if (withType) {
+                    query.setShort(2, TYPES[random.nextInt(TYPES.length)].code());
+                }
+                long start = System.nanoTime();
+                try (ResultSet resultSet = query.executeQuery()) {
+                    while (resultSet.next()) {
+                        resultSet.getLong(1);
+                    }
+                }
+                samples[i] = System.nanoTime() - start;
+            }
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile / 100.0 * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
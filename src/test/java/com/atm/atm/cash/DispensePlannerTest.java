@@ -0,0 +1,72 @@
+package com.atm.atm.cash;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the note combinations chosen by {@link DispensePlanner}.
+ */
+class DispensePlannerTest {
+
+    // 5000, 1000, 500 and 100 in minor units
+    private static final long[] NOTES = {500_000, 100_000, 50_000, 10_000};
+
+    private final DispensePlanner planner = new DispensePlanner(NOTES, 5_000_000);
+    private final int[] out = new int[NOTES.length];
+
+    @Test
+    void fullCassettesGiveFewestNotes() {
+        assertThat(planner.plan(660_000, new int[]{100, 100, 100, 100}, out)).isTrue();
+        assertThat(out).containsExactly(1, 1, 1, 1);
+
+        assertThat(planner.plan(4_990_000, new int[]{100, 100, 100, 100}, out)).isTrue();
+        assertThat(out).containsExactly(9, 4, 1, 4);
+    }
+
+    @Test
+    void emptyCassetteFallsBackToSmallerNotes() {
+        assertThat(planner.plan(660_000, new int[]{0, 10, 10, 10}, out)).isTrue();
+        assertThat(out).containsExactly(0, 6, 1, 1);
+    }
+
+    @Test
+    void amountsAboveThePrecomputedRangeAreSearched() {
+        assertThat(planner.plan(6_000_000, new int[]{100, 100, 100, 100}, out)).isTrue();
+        assertThat(out).containsExactly(12, 0, 0, 0);
+    }
+
+    @Test
+    void undispensableAmountsAreRejected() {
+        assertThat(planner.plan(5_000, new int[]{100, 100, 100, 100}, out)).isFalse();
+        assertThat(planner.plan(30_000, new int[]{100, 100, 100, 0}, out)).isFalse();
+        assertThat(planner.plan(2_000_000, new int[]{1, 1, 1, 1}, out)).isFalse();
+    }
+
+    @Test
+    void nonCanonicalDenominationsAreStillSolved() {
+        // Greedy would take one 5000 and be left with 1000, which 2000s cannot make
+        DispensePlanner fivesAndTwos = new DispensePlanner(new long[]{500_000, 200_000}, 5_000_000);
+        int[] plan = new int[2];
+
+        assertThat(fivesAndTwos.plan(600_000, new int[]{10, 10}, plan)).isTrue();
+        assertThat(plan).containsExactly(0, 3);
+
+        assertThat(fivesAndTwos.plan(1_100_000, new int[]{10, 10}, plan)).isTrue();
+        assertThat(plan).containsExactly(1, 3);
+
+        assertThat(fivesAndTwos.plan(1_100_000, new int[]{10, 2}, plan)).isFalse();
+    }
+
+    @Test
+    void searchGivesUpAfterItsNodeLimit() {
+        // 6000 takes three nodes: one 5000 fails, then no 5000 and three 2000s
+        DispensePlanner searchOnly = new DispensePlanner(new long[]{500_000, 200_000}, 0, 3);
+        DispensePlanner tooFewNodes = new DispensePlanner(new long[]{500_000, 200_000}, 0, 2);
+        int[] plan = new int[2];
+
+        assertThat(searchOnly.plan(600_000, new int[]{10, 10}, plan)).isTrue();
+        assertThat(plan).containsExactly(0, 3);
+        assertThat(tooFewNodes.plan(600_000, new int[]{10, 10}, plan)).isFalse();
+    }
+}
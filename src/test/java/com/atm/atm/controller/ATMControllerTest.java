@@ -0,0 +1,149 @@
+package com.atm.atm.controller;
+
+import com.atm.atm.dto.AccountDTO;
+import com.atm.atm.entity.Account;
+import com.atm.atm.entity.AccountStatus;
+import com.atm.atm.money.Money;
+import com.atm.atm.repository.AccountRepository;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for the HTML interface with stateless session tokens.
+ */
+@SpringBootTest
+class ATMControllerTest {
+
+    private static final AtomicInteger ACCOUNT_SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    private MockMvc mockMvc;
+    private String accountNumber;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+        accountNumber = "WEB-" + ACCOUNT_SEQUENCE.incrementAndGet();
+        Account account = new Account();
+        account.setAccountNumber(accountNumber);
+        account.setPin("1357");
+        account.setAccountHolderName("Web Test");
+        account.setBalance(Money.ofMajor(1000));
+        account.setStatus(AccountStatus.ACTIVE);
+        accountRepository.save(account);
+    }
+
+    @Test
+    void loginIssuesSignedCookieWithoutServerSession() throws Exception {
+        MvcResult login = mockMvc.perform(post("/auth/login")
+                        .param("accountNumber", accountNumber)
+                        .param("pin", "1357"))
+                .andExpect(redirectedUrl("/atm/dashboard"))
+                .andExpect(cookie().httpOnly(WebAuthentication.COOKIE_NAME, true))
+                .andReturn();
+        assertNull(login.getRequest().getSession(false));
+
+        Cookie session = login.getResponse().getCookie(WebAuthentication.COOKIE_NAME);
+        assertNotNull(session);
+        MvcResult dashboard = mockMvc.perform(get("/atm/dashboard").cookie(session))
+                .andExpect(status().isOk())
+                .andExpect(model().attributeExists("account", "statistics", "recentTransactions"))
+                .andReturn();
+        assertEquals(accountNumber, ((AccountDTO) dashboard.getModelAndView().getModel().get("account")).getAccountNumber());
+        assertNull(dashboard.getRequest().getSession(false));
+    }
+
+    @Test
+    void balanceIsReadThroughServiceAfterOperation() throws Exception {
+        Cookie session = login();
+
+        MvcResult withdraw = mockMvc.perform(post("/atm/withdraw").cookie(session)
+                        .param("amount", "300")
+                        .param("idempotencyKey", "web-withdraw-" + accountNumber))
+                .andExpect(status().isOk())
+                .andExpect(model().attributeExists("successMessage"))
+                .andReturn();
+        assertEquals(Money.ofMajor(700), ((AccountDTO) withdraw.getModelAndView().getModel().get("account")).getBalance());
+
+        MvcResult dashboard = mockMvc.perform(get("/atm/dashboard").cookie(session))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertEquals(Money.ofMajor(700), ((AccountDTO) dashboard.getModelAndView().getModel().get("account")).getBalance());
+    }
+
+    @Test
+    void tamperedOrMissingCookieRedirectsToLogin() throws Exception {
+        Cookie session = login();
+        String token = session.getValue();
+        // Change the first character of the signature
+        int signature = token.indexOf('.') + 1;
+        char first = token.charAt(signature);
+        String tampered = token.substring(0, signature) + (first == 'A' ? 'B' : 'A') + token.substring(signature + 1);
+
+        mockMvc.perform(get("/atm/dashboard").cookie(new Cookie(WebAuthentication.COOKIE_NAME, tampered)))
+                .andExpect(redirectedUrl("/auth/login"))
+                .andExpect(cookie().maxAge(WebAuthentication.COOKIE_NAME, 0));
+        mockMvc.perform(get("/atm/dashboard"))
+                .andExpect(redirectedUrl("/auth/login"));
+    }
+
+    @Test
+    void lockedAccountIsSignedOut() throws Exception {
+        Cookie session = login();
+        mockMvc.perform(get("/atm/dashboard").cookie(session))
+                .andExpect(status().isOk());
+
+        // Locked by failed logins from elsewhere while the cookie is still valid
+        for (int attempt = 0; attempt < 3; attempt++) {
+            mockMvc.perform(post("/auth/login")
+                    .param("accountNumber", accountNumber)
+                    .param("pin", "0000"));
+        }
+
+        mockMvc.perform(get("/atm/dashboard").cookie(session))
+                .andExpect(redirectedUrl("/auth/login"))
+                .andExpect(cookie().maxAge(WebAuthentication.COOKIE_NAME, 0));
+    }
+
+    @Test
+    void logoutClearsCookie() throws Exception {
+        Cookie session = login();
+
+        mockMvc.perform(get("/atm/logout").cookie(session))
+                .andExpect(redirectedUrl("/auth/login?logout=true"))
+                .andExpect(cookie().maxAge(WebAuthentication.COOKIE_NAME, 0));
+    }
+
+    private Cookie login() throws Exception {
+        return mockMvc.perform(post("/auth/login")
+                        .param("accountNumber", accountNumber)
+                        .param("pin", "1357"))
+                .andExpect(redirectedUrl("/atm/dashboard"))
+                .andReturn().getResponse().getCookie(WebAuthentication.COOKIE_NAME);
+    }
+}
@@ -0,0 +1,516 @@
+package com.atm.atm.controller;
+
+import com.atm.atm.entity.Account;
+import com.atm.atm.entity.AccountStatus;
+import com.atm.atm.entity.Transaction;
+import com.atm.atm.entity.TransactionType;
+import com.atm.atm.metrics.AtmMetrics;
+import com.atm.atm.metrics.RequestQueryCountFilter;
+import com.atm.atm.money.Money;
+import com.atm.atm.repository.AccountRepository;
+import com.atm.atm.repository.BalanceSnapshotRepository;
+import com.atm.atm.repository.TransactionRepository;
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for the JSON API.
+ */
+// Own database: another context on the shared one would recreate its tables under the cached
+// contexts and their in-memory state, such as the withdrawal limiter's per-account totals
+@SpringBootTest(properties = {
+        "atm.ingest.terminal-key=test-terminal-key",
+        "spring.datasource.url=jdbc:h2:mem:api-controller-test"
+})
+class ApiControllerTest {
+
+    private static final AtomicInteger ACCOUNT_SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private RequestQueryCountFilter requestQueryCountFilter;
+
+    private MockMvc mockMvc;
+    private String accountNumber;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+        // Fresh account per test so balances don't leak between tests
+        accountNumber = createAccount();
+    }
+
+    @Test
+    void loginReturnsTokenAndAccount() throws Exception {
+        mockMvc.perform(post("/api/v1/auth/token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(credentials("4321")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tokenType").value("Bearer"))
+                .andExpect(jsonPath("$.token").isNotEmpty())
+                .andExpect(jsonPath("$.account.accountNumber").value(accountNumber))
+                .andExpect(jsonPath("$.account.pin").doesNotExist());
+    }
+
+    @Test
+    void loginWithWrongPinIsUnauthorized() throws Exception {
+        mockMvc.perform(post("/api/v1/auth/token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(credentials("0000")))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.error").value("Authentication Failed"));
+    }
+
+    @Test
+    void requestsWithoutTokenAreUnauthorized() throws Exception {
+        mockMvc.perform(get("/api/v1/account"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/v1/account").header(HttpHeaders.AUTHORIZATION, "Bearer not-a-token"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void withdrawAndDepositUpdateBalance() throws Exception {
+        String token = login();
+
+        mockMvc.perform(post("/api/v1/withdraw")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 300}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactionType").value("WITHDRAWAL"))
+                .andExpect(jsonPath("$.balanceAfterTransaction").value(700.0));
+
+        mockMvc.perform(post("/api/v1/deposit")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 500}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactionType").value("DEPOSIT"))
+                .andExpect(jsonPath("$.balanceAfterTransaction").value(1200.0));
+
+        mockMvc.perform(get("/api/v1/account").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(1200.0));
+    }
+
+    @Test
+    void rejectedOperationsReturnJsonErrors() throws Exception {
+        String token = login();
+
+        mockMvc.perform(post("/api/v1/withdraw")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 5000}"))
+                .andExpect(status().is(422))
+                .andExpect(jsonPath("$.error").value("Insufficient Balance"));
+
+        mockMvc.perform(post("/api/v1/deposit")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 150}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid Amount"));
+
+        mockMvc.perform(post("/api/v1/deposit")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Amount is required"));
+    }
+
+    @Test
+    void historyIsPagedWithCursor() throws Exception {
+        String token = login();
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(post("/api/v1/deposit")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"amount\": 100}"))
+                    .andExpect(status().isOk());
+        }
+
+        String firstPage = mockMvc.perform(get("/api/v1/transactions")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions.length()").value(2))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(get("/api/v1/transactions")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .param("size", "2")
+                        .param("cursor", JsonPath.<String>read(firstPage, "$.nextCursor")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactions.length()").value(1))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void repeatedIdempotencyKeyReplaysFirstResult() throws Exception {
+        String token = login();
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(post("/api/v1/withdraw")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .header("Idempotency-Key", "retry-1")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"amount\": 200}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.balanceAfterTransaction").value(800.0));
+        }
+
+        mockMvc.perform(get("/api/v1/account").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(jsonPath("$.balance").value(800.0));
+        mockMvc.perform(get("/api/v1/transactions").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(jsonPath("$.transactions.length()").value(1));
+    }
+
+    @Test
+    void reusedIdempotencyKeyForDifferentRequestConflicts() throws Exception {
+        String token = login();
+
+        mockMvc.perform(post("/api/v1/deposit")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .header("Idempotency-Key", "retry-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 100}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/v1/deposit")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .header("Idempotency-Key", "retry-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 300}"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void reusedTransferKeyForAnotherDestinationConflicts() throws Exception {
+        String token = login();
+        String firstDestination = createAccount();
+        String secondDestination = createAccount();
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/v1/transfer")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .header("Idempotency-Key", "retry-3")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"toAccountNumber\": \"" + firstDestination + "\", \"amount\": 100}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.balanceAfterTransaction").value(900.0));
+        }
+
+        // Same key and amount, different destination
+        mockMvc.perform(post("/api/v1/transfer")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .header("Idempotency-Key", "retry-3")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"toAccountNumber\": \"" + secondDestination + "\", \"amount\": 100}"))
+                .andExpect(status().isConflict());
+
+        assertEquals(Money.ofMajor(1000), accountRepository.findByAccountNumber(secondDestination).orElseThrow().getBalance());
+        assertEquals(Money.ofMajor(1100), accountRepository.findByAccountNumber(firstDestination).orElseThrow().getBalance());
+    }
+
+    @Test
+    void logoutRevokesToken() throws Exception {
+        String token = login();
+
+        mockMvc.perform(delete("/api/v1/auth/token").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/v1/account").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void balanceAtPointInTimeUsesSnapshots() throws Exception {
+        String token = login();
+        LocalDateTime beforeActivity = LocalDateTime.now().minusSeconds(1);
+        mockMvc.perform(post("/api/v1/withdraw")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 400}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/balance")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .param("at", beforeActivity.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(1000.0));
+
+        // Tomorrow is answered from today's snapshot
+        mockMvc.perform(get("/api/v1/balance")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .param("at", LocalDate.now().plusDays(1).atTime(12, 0).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(600.0));
+
+        Long accountId = accountRepository.findByAccountNumber(accountNumber).orElseThrow().getId();
+        assertEquals(Money.ofMajor(600), balanceSnapshotRepository
+                .findFirstByAccountIdAndSnapshotDateLessThanOrderBySnapshotDateDesc(accountId, LocalDate.now().plusDays(1))
+                .orElseThrow().getBalance());
+    }
+
+    @Test
+    void statementStreamsTransactionsOldestFirst() throws Exception {
+        String token = login();
+        for (int amount : new int[]{100, 200, 300}) {
+            mockMvc.perform(post("/api/v1/deposit")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"amount\": " + amount + "}"))
+                    .andExpect(status().isOk());
+        }
+
+        String csv = mockMvc.perform(get("/api/v1/statement")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = csv.trim().split("\n");
+        assertEquals(4, lines.length);
+        assertTrue(lines[1].contains(",DEPOSIT,100.00,1100.00,"));
+        assertTrue(lines[3].contains(",DEPOSIT,300.00,1600.00,"));
+
+        String ndjson = mockMvc.perform(get("/api/v1/statement")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .param("format", "ndjson")
+                        .param("from", LocalDate.now().toString())
+                        .param("to", LocalDate.now().toString()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(3, ndjson.trim().split("\n").length);
+
+        mockMvc.perform(get("/api/v1/statement")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .param("from", LocalDate.now().plusDays(1).toString())
+                        .param("to", LocalDate.now().toString()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void statementIsReadInPagesWithoutGapsOrRepeats() throws Exception {
+        Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow();
+        int rows = 2 * TransactionRepository.STATEMENT_PAGE_SIZE + 7;
+        LocalDateTime midnight = LocalDate.now().atStartOfDay();
+        List<Transaction> seeded = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setAccount(account);
+            transaction.setTransactionType(TransactionType.DEPOSIT);
+            transaction.setAmount(Money.ofMajor(1));
+            transaction.setBalanceAfterTransaction(account.getBalance());
+            // Three rows per timestamp, so pages also break between rows of the same instant
+            transaction.setTransactionDate(midnight.plusSeconds(i / 3));
+            seeded.add(transaction);
+        }
+        transactionRepository.saveAll(seeded);
+
+        String csv = mockMvc.perform(get("/api/v1/statement")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + login()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<Long> ids = Arrays.stream(csv.trim().split("\n")).skip(1)
+                .map(line -> Long.valueOf(line.substring(0, line.indexOf(','))))
+                .toList();
+        assertEquals(seeded.stream().map(Transaction::getId).toList(), ids);
+    }
+
+    @Test
+    void ingestAppliesBatchAndReportsEachItem() throws Exception {
+        String batch = String.join("\n",
+                ingestLine("DEPOSIT", 500, "offline-1"),
+                ingestLine("WITHDRAWAL", 5000, "offline-2"),
+                "not json",
+                ingestLine("WITHDRAWAL", 300, "offline-3"),
+                ingestLine("DEPOSIT", 500, "offline-1"));
+
+        String body = mockMvc.perform(post("/api/v1/ingest")
+                        .header("X-Terminal-Key", "test-terminal-key")
+                        .contentType("application/x-ndjson")
+                        .content(batch))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] results = body.trim().split("\n");
+        assertEquals(5, results.length);
+        assertEquals("APPLIED", JsonPath.read(results[0], "$.status"));
+        assertEquals("FAILED", JsonPath.read(results[1], "$.status"));
+        assertEquals("FAILED", JsonPath.read(results[2], "$.status"));
+        assertEquals("APPLIED", JsonPath.read(results[3], "$.status"));
+        assertEquals("REPLAYED", JsonPath.read(results[4], "$.status"));
+        assertEquals(4, (int) JsonPath.read(results[4], "$.index"));
+
+        // Replaying the whole batch must not apply anything twice
+        mockMvc.perform(post("/api/v1/ingest")
+                        .header("X-Terminal-Key", "test-terminal-key")
+                        .contentType("application/x-ndjson")
+                        .content(batch))
+                .andExpect(status().isOk());
+
+        assertEquals(Money.ofMajor(1200), accountRepository.findByAccountNumber(accountNumber).orElseThrow().getBalance());
+    }
+
+    @Test
+    void ingestRequiresTerminalKey() throws Exception {
+        mockMvc.perform(post("/api/v1/ingest")
+                        .header("X-Terminal-Key", "wrong-key")
+                        .contentType("application/x-ndjson")
+                        .content(ingestLine("DEPOSIT", 100, null)))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void operationsAreTimedByOutcome() throws Exception {
+        long withdrawals = operationCount("withdraw", "success");
+        long insufficient = operationCount("withdraw", "insufficient_balance");
+        long invalid = operationCount("deposit", "invalid_amount");
+        long locked = operationCount("authenticate", "locked");
+        String token = login();
+
+        mockMvc.perform(post("/api/v1/withdraw")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 100}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/v1/withdraw")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 5000}"))
+                .andExpect(status().is(422));
+        mockMvc.perform(post("/api/v1/deposit")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 150}"))
+                .andExpect(status().isBadRequest());
+
+        Account account = accountRepository.findByAccountNumber(accountNumber).orElseThrow();
+        account.setStatus(AccountStatus.LOCKED);
+        accountRepository.save(account);
+        mockMvc.perform(post("/api/v1/auth/token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(credentials("4321")))
+                .andExpect(status().isUnauthorized());
+
+        assertEquals(withdrawals + 1, operationCount("withdraw", "success"));
+        assertEquals(insufficient + 1, operationCount("withdraw", "insufficient_balance"));
+        assertEquals(invalid + 1, operationCount("deposit", "invalid_amount"));
+        assertEquals(locked + 1, operationCount("authenticate", "locked"));
+    }
+
+    @Test
+    void requestsRecordTheirQueryCount() throws Exception {
+        MockMvc filtered = MockMvcBuilders.webAppContextSetup(context).addFilters(requestQueryCountFilter).build();
+        String token = login();
+
+        filtered.perform(get("/api/v1/transactions").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+
+        DistributionSummary queries = meterRegistry.find("atm.http.db.queries")
+                .tags("method", "GET", "uri", "/api/v1/transactions")
+                .summary();
+        assertTrue(queries != null && queries.count() > 0);
+        assertTrue(queries.max() > 0);
+    }
+
+    @Test
+    void lockMetricsArePublishedPerStripe() throws Exception {
+        String token = login();
+        double before = lockAcquisitions();
+
+        mockMvc.perform(post("/api/v1/deposit")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 100}"))
+                .andExpect(status().isOk());
+
+        assertTrue(lockAcquisitions() > before);
+        assertEquals(64, meterRegistry.find("atm.locks.wait").functionTimers().size());
+        assertEquals(64, meterRegistry.find("atm.locks.wait.max").timeGauges().size());
+    }
+
+    private double lockAcquisitions() {
+        return meterRegistry.find("atm.locks.acquisitions").functionCounters().stream()
+                .mapToDouble(FunctionCounter::count)
+                .sum();
+    }
+
+    private String createAccount() {
+        Account account = new Account();
+        account.setAccountNumber("API-" + ACCOUNT_SEQUENCE.incrementAndGet());
+        account.setPin("4321");
+        account.setAccountHolderName("Api Test");
+        account.setBalance(Money.ofMajor(1000));
+        account.setStatus(AccountStatus.ACTIVE);
+        return accountRepository.save(account).getAccountNumber();
+    }
+
+    private String login() throws Exception {
+        String body = mockMvc.perform(post("/api/v1/auth/token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(credentials("4321")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(body, "$.token");
+    }
+
+    private long operationCount(String operation, String outcome) {
+        Timer timer = meterRegistry.find(AtmMetrics.OPERATION_TIMER)
+                .tags("operation", operation, "outcome", outcome)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private String ingestLine(String type, int amount, String idempotencyKey) {
+        return "{\"accountNumber\": \"" + accountNumber + "\", \"type\": \"" + type + "\", \"amount\": " + amount
+                + (idempotencyKey == null ? "" : ", \"idempotencyKey\": \"" + idempotencyKey + "\"") + "}";
+    }
+
+    private String credentials(String pin) {
+        return "{\"accountNumber\": \"" + accountNumber + "\", \"pin\": \"" + pin + "\"}";
+    }
+}
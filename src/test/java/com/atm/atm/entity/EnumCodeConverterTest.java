@@ -0,0 +1,54 @@
+package com.atm.atm.entity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for the SMALLINT codes the status and type enums are stored as.
+ * The codes are in the database, so these pin them down.
+ */
+class EnumCodeConverterTest {
+
+    @Test
+    void storedCodesNeverChange() {
+        assertThat(AccountStatus.ACTIVE.code()).isEqualTo((short) 1);
+        assertThat(AccountStatus.INACTIVE.code()).isEqualTo((short) 2);
+        assertThat(AccountStatus.LOCKED.code()).isEqualTo((short) 3);
+
+        assertThat(TransactionType.WITHDRAWAL.code()).isEqualTo((short) 1);
+        assertThat(TransactionType.DEPOSIT.code()).isEqualTo((short) 2);
+        assertThat(TransactionType.TRANSFER_OUT.code()).isEqualTo((short) 3);
+        assertThat(TransactionType.TRANSFER_IN.code()).isEqualTo((short) 4);
+
+        assertThat(TransactionStatus.SUCCESS.code()).isEqualTo((short) 1);
+        assertThat(TransactionStatus.FAILED.code()).isEqualTo((short) 2);
+        assertThat(TransactionStatus.PENDING.code()).isEqualTo((short) 3);
+    }
+
+    @Test
+    void convertersRoundTrip() {
+        AccountStatusConverter accountStatus = new AccountStatusConverter();
+        for (AccountStatus status : AccountStatus.values()) {
+            assertThat(accountStatus.convertToEntityAttribute(accountStatus.convertToDatabaseColumn(status))).isEqualTo(status);
+        }
+        TransactionTypeConverter transactionType = new TransactionTypeConverter();
+        for (TransactionType type : TransactionType.values()) {
+            assertThat(transactionType.convertToEntityAttribute(transactionType.convertToDatabaseColumn(type))).isEqualTo(type);
+        }
+        TransactionStatusConverter transactionStatus = new TransactionStatusConverter();
+        for (TransactionStatus status : TransactionStatus.values()) {
+            assertThat(transactionStatus.convertToEntityAttribute(transactionStatus.convertToDatabaseColumn(status))).isEqualTo(status);
+        }
+        assertThat(transactionType.convertToDatabaseColumn(null)).isNull();
+        assertThat(transactionType.convertToEntityAttribute(null)).isNull();
+    }
+
+    @Test
+    void unknownCodesAreRejected() {
+        assertThatThrownBy(() -> TransactionType.fromCode((short) 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TransactionType.fromCode((short) 99)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> AccountStatus.fromCode((short) -1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,341 @@
+package com.atm.atm.service;
+
+import com.atm.atm.dto.AccountStatistics;
+import com.atm.atm.dto.TransactionDTO;
+import com.atm.atm.entity.Account;
+import com.atm.atm.entity.AccountStatus;
+import com.atm.atm.entity.Cassette;
+import com.atm.atm.entity.Transaction;
+import com.atm.atm.entity.TransactionStatus;
+import com.atm.atm.entity.TransactionType;
+import com.atm.atm.exception.CashUnavailableException;
+import com.atm.atm.exception.InsufficientBalanceException;
+import com.atm.atm.exception.WithdrawalLimitExceededException;
+import com.atm.atm.metrics.QueryCounter;
+import com.atm.atm.money.Money;
+import com.atm.atm.repository.AccountRepository;
+import com.atm.atm.repository.CassetteRepository;
+import com.atm.atm.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Stress tests hammering a single account from many threads at once.
+ */
+@SpringBootTest
+class ATMServiceConcurrencyTest {
+
+    private static final int THREADS = 200;
+    private static final int OPERATIONS_PER_THREAD = 5;
+
+    @Autowired
+    private ATMService atmService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionJournal transactionJournal;
+
+    @Autowired
+    private AccountStatisticsService accountStatisticsService;
+
+    @Autowired
+    private CashInventory cashInventory;
+
+    @Autowired
+    private CassetteRepository cassetteRepository;
+
+    @Autowired
+    private RecentTransactionsCache recentTransactionsCache;
+
+    @Test
+    void concurrentWithdrawalsAndDepositsAreExact() throws Exception {
+        Account account = createAccount("STRESS-01", Money.ofMajor(100000));
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                if (thread % 2 == 0) {
+                    atmService.withdraw(account, Money.ofMajor(100));
+                } else {
+                    atmService.deposit(account, Money.ofMajor(200));
+                }
+            }
+        });
+
+        int operations = THREADS * OPERATIONS_PER_THREAD;
+        Money expected = Money.ofMajor(100000 + (operations / 2) * 200L - (operations / 2) * 100L);
+        assertThat(accountRepository.findById(account.getId()).orElseThrow().getBalance()).isEqualTo(expected);
+        assertThat(transactionRepository.findByAccountOrderByTransactionDateDesc(account)).hasSize(operations);
+
+        // Running totals must see every committed operation exactly once
+        AccountStatistics statistics = accountStatisticsService.statistics(account.getId());
+        assertThat(statistics.getWithdrawnToday()).isEqualTo(Money.ofMajor((operations / 2) * 100L));
+        assertThat(statistics.getDepositedToday()).isEqualTo(Money.ofMajor((operations / 2) * 200L));
+        assertThat(statistics.getTransactionsToday()).isEqualTo(operations);
+    }
+
+    @Test
+    void concurrentWithdrawalsNeverOverdraw() throws Exception {
+        Account account = createAccount("STRESS-02", Money.ofMajor(10000));
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            try {
+                atmService.withdraw(account, Money.ofMajor(100));
+                succeeded.incrementAndGet();
+            } catch (InsufficientBalanceException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        assertThat(succeeded.get()).isEqualTo(100);
+        assertThat(rejected.get()).isEqualTo(THREADS - 100);
+        assertThat(accountRepository.findById(account.getId()).orElseThrow().getBalance()).isEqualTo(Money.ZERO);
+        assertThat(transactionRepository.findByAccountOrderByTransactionDateDesc(account)).hasSize(100);
+    }
+
+    @Test
+    void concurrentWithdrawalsStopAtDailyLimit() throws Exception {
+        Account account = createAccount("STRESS-05", Money.ofMajor(1000000));
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger limited = new AtomicInteger();
+
+        runConcurrently(thread -> {
+            try {
+                atmService.withdraw(account, Money.ofMajor(1000));
+                succeeded.incrementAndGet();
+            } catch (WithdrawalLimitExceededException e) {
+                limited.incrementAndGet();
+            }
+        });
+
+        // The default daily limit is 100000
+        assertThat(succeeded.get()).isEqualTo(100);
+        assertThat(limited.get()).isEqualTo(THREADS - 100);
+        assertThat(accountRepository.findById(account.getId()).orElseThrow().getBalance()).isEqualTo(Money.ofMajor(900000));
+        assertThatThrownBy(() -> atmService.withdraw(createAccount("STRESS-06", Money.ofMajor(100000)), Money.ofMajor(60000)))
+                .isInstanceOf(WithdrawalLimitExceededException.class);
+    }
+
+    @Test
+    void concurrentWithdrawalsTakeExactNotesFromTerminal() throws Exception {
+        Account account = createAccount("STRESS-07", Money.ofMajor(100000));
+        int hundredsBefore = hundreds(cashInventory.levels(null));
+
+        runConcurrently(thread -> atmService.withdraw(account, Money.ofMajor(300)));
+
+        // Every 300 is paid with three 100 notes, both in memory and in the cassettes
+        assertThat(hundreds(cashInventory.levels(null))).isEqualTo(hundredsBefore - THREADS * 3);
+        Cassette cassette = cassetteRepository.findByTerminalId("ATM-001").stream()
+                .filter(c -> c.getDenomination().equals(Money.ofMajor(100)))
+                .findFirst().orElseThrow();
+        assertThat(cassette.getNoteCount()).isEqualTo(hundredsBefore - THREADS * 3);
+
+        // A terminal without cassettes refuses before the account is touched
+        assertThatThrownBy(() -> atmService.withdraw(account, Money.ofMajor(100), null, "NO-SUCH-TERMINAL"))
+                .isInstanceOf(CashUnavailableException.class);
+        assertThat(accountRepository.findById(account.getId()).orElseThrow().getBalance())
+                .isEqualTo(Money.ofMajor(100000 - THREADS * 300L));
+    }
+
+    @Test
+    void recentTransactionsStayInStepWithConcurrentOperations() throws Exception {
+        Account account = createAccount("STRESS-08", Money.ofMajor(100000));
+        assertThat(atmService.getRecentTransactions(account)).isEmpty();
+
+        // Readers race the writers, which append to the warmed buffer after every commit
+        runConcurrently(thread -> {
+            if (thread % 4 == 0) {
+                assertThat(atmService.getRecentTransactions(account)).hasSizeLessThanOrEqualTo(10);
+            } else if (thread % 2 == 0) {
+                atmService.withdraw(account, Money.ofMajor(100));
+            } else {
+                atmService.deposit(account, Money.ofMajor(200));
+            }
+        });
+
+        long missesBefore = recentTransactionsCache.stats().misses();
+        List<Long> cached = atmService.getRecentTransactions(account).stream().map(TransactionDTO::getId).toList();
+        List<Long> stored = transactionRepository.findHistory(account.getId(), Limit.of(10)).stream()
+                .map(TransactionDTO::getId)
+                .toList();
+        assertThat(cached).hasSize(10).isEqualTo(stored);
+        assertThat(recentTransactionsCache.stats().misses()).isEqualTo(missesBefore);
+    }
+
+    @Test
+    void concurrentOperationsOnManyAccountsAreGroupCommitted() throws Exception {
+        int accounts = 20;
+        List<Account> created = new ArrayList<>();
+        for (int i = 0; i < accounts; i++) {
+            created.add(createAccount(String.format("STRESS-03-%02d", i), Money.ofMajor(10000)));
+        }
+
+        runConcurrently(thread -> {
+            Account account = created.get(thread % accounts);
+            for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                atmService.deposit(account, Money.ofMajor(100));
+            }
+        });
+
+        int operationsPerAccount = THREADS / accounts * OPERATIONS_PER_THREAD;
+        for (Account account : created) {
+            assertThat(accountRepository.findById(account.getId()).orElseThrow().getBalance())
+                    .isEqualTo(Money.ofMajor(10000 + operationsPerAccount * 100L));
+            assertThat(transactionRepository.findByAccountOrderByTransactionDateDesc(account)).hasSize(operationsPerAccount);
+        }
+        // Different accounts never wait on each other, so their operations share batches
+        assertThat(transactionJournal.stats().largestBatch()).isGreaterThan(1);
+    }
+
+    @Test
+    void concurrentCrossTransfersConserveMoney() throws Exception {
+        int accounts = 10;
+        int transfersPerThread = 20;
+        List<Account> created = new ArrayList<>();
+        for (int i = 0; i < accounts; i++) {
+            created.add(createAccount(String.format("STRESS-04-%02d", i), Money.ofMajor(5000)));
+        }
+        AtomicInteger succeeded = new AtomicInteger();
+
+        // 4000 transfers between random pairs, so opposing transfers on the same pair run concurrently
+        runConcurrently(thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < transfersPerThread; i++) {
+                int from = random.nextInt(accounts);
+                int to = (from + 1 + random.nextInt(accounts - 1)) % accounts;
+                try {
+                    atmService.transfer(created.get(from), created.get(to), Money.ofMinor(1 + random.nextLong(200_000)));
+                    succeeded.incrementAndGet();
+                } catch (InsufficientBalanceException e) {
+                    // Expected once an account runs dry
+                }
+            }
+        });
+
+        long total = 0;
+        int outgoing = 0;
+        int incoming = 0;
+        for (Account account : created) {
+            Money balance = accountRepository.findById(account.getId()).orElseThrow().getBalance();
+            assertThat(balance.isNegative()).isFalse();
+            total += balance.minorUnits();
+            for (var transaction : transactionRepository.findByAccountOrderByTransactionDateDesc(account)) {
+                if (transaction.getTransactionType() == TransactionType.TRANSFER_OUT) {
+                    outgoing++;
+                } else if (transaction.getTransactionType() == TransactionType.TRANSFER_IN) {
+                    incoming++;
+                }
+            }
+        }
+        assertThat(total).isEqualTo(accounts * Money.ofMajor(5000).minorUnits());
+        assertThat(outgoing).isEqualTo(succeeded.get());
+        assertThat(incoming).isEqualTo(succeeded.get());
+    }
+
+    @Test
+    void journalStatementsCountAgainstTheSubmittingThread() {
+        Account account = createAccount("STRESS-09", Money.ofMajor(100));
+        Transaction transaction = new Transaction();
+        transaction.setAccount(account);
+        transaction.setTransactionType(TransactionType.DEPOSIT);
+        transaction.setAmount(Money.ofMajor(1));
+        transaction.setBalanceAfterTransaction(account.getBalance());
+        transaction.setStatus(TransactionStatus.SUCCESS);
+        transaction.setTransactionDate(LocalDateTime.now());
+
+        // The operation itself runs no SQL, so everything counted ran on the writer thread
+        QueryCounter.reset();
+        transactionJournal.submitAll(() -> List.of(transaction));
+
+        assertThat(QueryCounter.count()).isPositive();
+    }
+
+    @Test
+    void journalKeepsTheTransactionDateTheServiceSet() {
+        Account account = createAccount("STRESS-10", Money.ofMajor(100));
+        LocalDateTime beforeMidnight = LocalDate.now().minusDays(1).atTime(23, 59, 59);
+        Transaction transaction = new Transaction();
+        transaction.setAccount(account);
+        transaction.setTransactionType(TransactionType.DEPOSIT);
+        transaction.setAmount(Money.ofMajor(1));
+        transaction.setBalanceAfterTransaction(account.getBalance());
+        transaction.setTransactionDate(beforeMidnight);
+
+        Transaction saved = transactionJournal.submitAll(() -> List.of(transaction)).get(0);
+
+        assertThat(transactionRepository.findById(saved.getId()).orElseThrow().getTransactionDate())
+                .isEqualTo(beforeMidnight);
+    }
+
+    private int hundreds(CashInventory.NoteCount[] levels) {
+        for (CashInventory.NoteCount level : levels) {
+            if (level.denomination().equals(Money.ofMajor(100))) {
+                return level.notes();
+            }
+        }
+        throw new AssertionError("No 100 cassette");
+    }
+
+    private Account createAccount(String accountNumber, Money balance) {
+        Account account = new Account();
+        account.setAccountNumber(accountNumber);
+        account.setPin("0000");
+        account.setAccountHolderName("Stress Test");
+        account.setBalance(balance);
+        account.setStatus(AccountStatus.ACTIVE);
+        return accountRepository.save(account);
+    }
+
+    /**
+     * Release all worker threads at once and fail if any of them threw.
+     */
+    private void runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    task.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThreadTask {
+        void run(int thread);
+    }
+}
@@ -0,0 +1,117 @@
+package com.atm.atm.service;
+
+import com.atm.atm.entity.Account;
+import com.atm.atm.entity.AccountStatus;
+import com.atm.atm.exception.AccountLockedException;
+import com.atm.atm.exception.AccountNotFoundException;
+import com.atm.atm.exception.InvalidPinException;
+import com.atm.atm.exception.LoginThrottledException;
+import com.atm.atm.metrics.QueryCounter;
+import com.atm.atm.money.Money;
+import com.atm.atm.repository.AccountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for PIN hashing and the failed-login limits.
+ */
+@SpringBootTest
+class AccountServiceTest {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private PinHasher pinHasher;
+
+    @Test
+    void plaintextPinIsHashedOnFirstLogin() {
+        Account account = createAccount("2580");
+        String address = nextAddress();
+
+        accountService.authenticate(account.getAccountNumber(), "2580", address);
+
+        Account rehashed = accountRepository.findById(account.getId()).orElseThrow();
+        // Rehashing leaves the version alone, so it cannot conflict with a balance change
+        assertThat(rehashed.getVersion()).isEqualTo(account.getVersion());
+        String stored = rehashed.getPin();
+        assertThat(stored).startsWith("pbkdf2-sha256$").doesNotContain("2580");
+        assertThat(pinHasher.needsRehash(stored)).isFalse();
+        assertThat(accountService.authenticate(account.getAccountNumber(), "2580", address).getAccountNumber())
+                .isEqualTo(account.getAccountNumber());
+        assertThatThrownBy(() -> accountService.authenticate(account.getAccountNumber(), "2581", address))
+                .isInstanceOf(InvalidPinException.class);
+    }
+
+    @Test
+    void onlyTheTransitionToLockedIsWritten() {
+        Account account = createAccount(pinHasher.hash("2580"));
+        String address = nextAddress();
+
+        for (int attempt = 1; attempt < 3; attempt++) {
+            assertThatThrownBy(() -> accountService.authenticate(account.getAccountNumber(), "0000", address))
+                    .isExactlyInstanceOf(InvalidPinException.class);
+        }
+        Account unchanged = accountRepository.findById(account.getId()).orElseThrow();
+        assertThat(unchanged.getVersion()).isEqualTo(account.getVersion());
+        assertThat(unchanged.getFailedLoginAttempts()).isZero();
+
+        assertThatThrownBy(() -> accountService.authenticate(account.getAccountNumber(), "0000", address))
+                .isInstanceOf(AccountLockedException.class);
+        Account locked = accountRepository.findById(account.getId()).orElseThrow();
+        assertThat(locked.getStatus()).isEqualTo(AccountStatus.LOCKED);
+        assertThat(locked.getFailedLoginAttempts()).isEqualTo(3);
+
+        // Refused from memory, even with the right PIN and from another address
+        QueryCounter.reset();
+        assertThatThrownBy(() -> accountService.authenticate(account.getAccountNumber(), "2580", nextAddress()))
+                .isInstanceOf(AccountLockedException.class);
+        assertThat(QueryCounter.count()).isZero();
+    }
+
+    @Test
+    void abusiveAddressIsRefusedBeforeAnyDatabaseRead() {
+        Account account = createAccount(pinHasher.hash("2580"));
+        String address = nextAddress();
+
+        // Probing for account numbers counts against the address
+        for (int attempt = 0; attempt < 20; attempt++) {
+            String probe = "PROBE-" + SEQUENCE.incrementAndGet();
+            assertThatThrownBy(() -> accountService.authenticate(probe, "0000", address))
+                    .isInstanceOf(AccountNotFoundException.class);
+        }
+
+        QueryCounter.reset();
+        assertThatThrownBy(() -> accountService.authenticate(account.getAccountNumber(), "2580", address))
+                .isInstanceOf(LoginThrottledException.class);
+        assertThat(QueryCounter.count()).isZero();
+
+        assertThat(accountService.authenticate(account.getAccountNumber(), "2580", nextAddress()).getAccountNumber())
+                .isEqualTo(account.getAccountNumber());
+    }
+
+    private Account createAccount(String pin) {
+        Account account = new Account();
+        account.setAccountNumber("PIN-" + SEQUENCE.incrementAndGet());
+        account.setPin(pin);
+        account.setAccountHolderName("PIN Test");
+        account.setBalance(Money.ofMajor(1000));
+        account.setStatus(AccountStatus.ACTIVE);
+        return accountRepository.save(account);
+    }
+
+    private static String nextAddress() {
+        return "2001:db8::" + Integer.toHexString(SEQUENCE.incrementAndGet());
+    }
+}
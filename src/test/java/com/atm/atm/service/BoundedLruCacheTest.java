@@ -0,0 +1,49 @@
+package com.atm.atm.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the LRU map shared by the in-process caches.
+ */
+class BoundedLruCacheTest {
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntry() {
+        BoundedLruCache<String, Integer> cache = new BoundedLruCache<>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.put("c", 3);
+
+        assertThat(cache.get("a")).isEqualTo(1);
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c")).isEqualTo(3);
+        assertThat(cache.stats()).isEqualTo(new BoundedLruCache.Stats(3, 1, 1, 2));
+    }
+
+    @Test
+    void keepsTheCurrentEntryWhenAsked() {
+        BoundedLruCache<String, Integer> cache = new BoundedLruCache<>(10);
+        cache.put("a", 5);
+        cache.putUnless("a", 4, current -> current > 4);
+        assertThat(cache.peek("a")).isEqualTo(5);
+
+        cache.putUnless("a", 6, current -> current > 6);
+        assertThat(cache.peek("a")).isEqualTo(6);
+        assertThat(cache.stats().hits() + cache.stats().misses()).isZero();
+    }
+
+    @Test
+    void expiredEntriesAreDropped() throws InterruptedException {
+        BoundedLruCache<String, Integer> cache = new BoundedLruCache<>(10, Duration.ofNanos(1));
+        cache.put("a", 1);
+        Thread.sleep(2);
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.stats()).isEqualTo(new BoundedLruCache.Stats(0, 1, 1, 0));
+    }
+}